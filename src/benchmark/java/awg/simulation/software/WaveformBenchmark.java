@@ -0,0 +1,221 @@
+package awg.simulation.software;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+public class WaveformBenchmark {
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        WaveformData data = new WaveformData();
+        data.setSamples(samples);
+        /// Off the sample grid, so no path shortcuts the comparison by tiling one period (see "Tiled" below)
+        data.setFrequency(1000.3);
+        data.setHarmonic1Amp(0.2);
+        WaveformGenerator generator = new WaveformGenerator();
+
+        for (String type : new String[]{"Sine", "Square", "Triangle", "Sawtooth"}) {
+            data.setDdsMode(false);
+            double reference = measure(() -> generator.generateWaveform(type, data), samples);
+            double[] expected = generator.generateWaveform(type, data);
+            data.setDdsMode(true);
+            double dds = measure(() -> generator.generateWaveform(type, data), samples);
+            System.out.printf("%-9s reference %8.2f MS/s   dds %8.2f MS/s   x%.2f   max |diff| %.2e%n",
+                    type, reference / 1e6, dds / 1e6, dds / reference, maxDifference(expected, generator.generateWaveform(type, data)));
+        }
+
+        data.setDdsMode(false);
+        double scalar = measure(() -> generator.generateWaveform("Sine", data), samples);
+        double[] expected = generator.generateWaveform("Sine", data);
+        data.setVectorBackend(true);
+        double vector = measure(() -> generator.generateWaveform("Sine", data), samples);
+        data.setVectorBackend(false);
+        System.out.printf("Kernels   scalar %8.2f MS/s   %s %8.2f MS/s   x%.2f   max |diff| %.2e%n",
+                scalar / 1e6, SampleKernels.preferred().name(), vector / 1e6, vector / scalar,
+                maxDifference(expected, generator.generateWaveform("Sine", data)));
+
+        SignalChain chain = new SignalChain(new WaveformGenerator(), new ModulationManager(), new NoiseGenerator());
+        SampleBuffer reference = chain.render("Sine", "None", data, SamplePrecision.FLOAT64);
+        for (SamplePrecision precision : new SamplePrecision[]{SamplePrecision.FLOAT32, SamplePrecision.INT16}) {
+            double rate = measure(() -> chain.render("Sine", "None", data, precision), samples);
+            System.out.printf("Precision %7.2f MS/s   %s%n", rate / 1e6,
+                    PrecisionReport.compare(reference, chain.render("Sine", "None", data, precision)));
+        }
+
+        ParallelWaveformGenerator parallel = new ParallelWaveformGenerator();
+        data.setFixedSeed(true);
+        double sequential = measure(() -> generator.generateWaveform("Sine", data), samples);
+        double forkJoin = measure(() -> parallel.generateWaveform(generator, "Sine", data), samples);
+        System.out.printf("Parallel  sequential %7.2f MS/s   fork/join %7.2f MS/s   x%.2f on %d cores%n",
+                sequential / 1e6, forkJoin / 1e6, forkJoin / sequential, Runtime.getRuntime().availableProcessors());
+
+        /// The same record with a whole number of cycles per 1000 samples: one period synthesized, the rest copied
+        WaveformData periodic = data.copy();
+        periodic.setFrequency(1000);
+        double synthesized = measure(() -> generator.generateWaveform("Sine", data), samples);
+        double tiled = measure(() -> generator.generateWaveform("Sine", periodic), samples);
+        System.out.printf("Tiled     %.1f Hz %8.2f MS/s   %.1f Hz %8.2f MS/s   x%.2f   period %d samples%n",
+                data.getFrequency(), synthesized / 1e6, periodic.getFrequency(), tiled / 1e6, tiled / synthesized,
+                Periodicity.recordPeriod("Sine", periodic, samples));
+
+        /// Bulk noise fills: the synchronized legacy generator against the default stream
+        double[] noise = new double[samples];
+        Random legacy = new Random(1);
+        RandomGenerator mixed = RandomSource.create(1);
+        double legacyUniform = measure(() -> RandomSource.fillUniform(legacy, noise), samples);
+        double streamUniform = measure(() -> RandomSource.fillUniform(mixed, noise), samples);
+        double legacyGaussian = measure(() -> {
+            for (int i = 0; i < noise.length; i++) {
+                noise[i] = legacy.nextGaussian();
+            }
+        }, samples);
+        double streamGaussian = measure(() -> RandomSource.fillGaussian(mixed, noise), samples);
+        System.out.printf("Random    uniform %7.2f -> %7.2f MS/s   gaussian %7.2f -> %7.2f MS/s   (Random -> %s, polar -> ziggurat)%n",
+                legacyUniform / 1e6, streamUniform / 1e6, legacyGaussian / 1e6, streamGaussian / 1e6,
+                RandomSource.DEFAULT_ALGORITHM);
+        System.out.printf("Ziggurat  %s%n", momentReport(noise));
+
+        /// Modulation: a 1M-sample record in one pass, then a long record streamed block by block
+        long streamed = args.length > 1 ? Long.parseLong(args[1]) : 100_000_000L;
+        WaveformData modulation = new WaveformData();
+        modulation.setSamples(1_000_000);
+        double[] message = new WaveformGenerator().generateWaveform("Sine", modulation);
+        ModulationManager modulationManager = new ModulationManager();
+        for (String type : new String[]{"AM", "FM", "PM", "FSK", "PSK"}) {
+            double record = measure(() -> modulationManager.applyModulation(message, type, modulation), message.length);
+            double stream = measureStreamed(modulationManager, type, modulation, message, streamed);
+            System.out.printf("%-9s 1M record %7.2f MS/s   %dM streamed %7.2f MS/s%n",
+                    type, record / 1e6, streamed / 1_000_000, stream / 1e6);
+        }
+
+        /// Noise following a measured-style density profile, streamed block by block through one generator
+        WaveformData spectralData = new WaveformData();
+        spectralData.setSamplingRate(1e6);
+        NoiseGenerator spectralNoise = new NoiseGenerator();
+        spectralNoise.setWaveformData(spectralData);
+        for (double[] point : new double[][]{{1e3, -90}, {1e4, -110}, {1e5, -120}, {3e5, -100}}) {
+            spectralNoise.getSpectralProfile().add(Math.log10(point[0]), point[1]);
+        }
+        double[] spectralBlock = new double[SignalChain.BLOCK_SIZE];
+        long spectralStart = System.nanoTime();
+        for (long index = 0; index < streamed; index += spectralBlock.length) {
+            int count = (int) Math.min(spectralBlock.length, streamed - index);
+            spectralNoise.generateNoise("Spectral", 0.5, spectralBlock, count, index);
+        }
+        System.out.printf("Spectral  %dM streamed %7.2f MS/s%n",
+                streamed / 1_000_000, streamed / ((System.nanoTime() - spectralStart) / 1e9) / 1e6);
+
+        /// A 1 MHz carrier with a phase-noise mask, read back from a Welch estimate of its spectrum
+        WaveformData masked = new WaveformData();
+        masked.setSamplingRate(10e6);
+        masked.setSamples(samples);
+        masked.setFrequency(1e6);
+        masked.setResolution("16-bit");
+        masked.setPhaseNoiseMask("1e3:-80, 1e4:-95, 1e5:-110, 1e6:-120");
+        WaveformGenerator maskedGenerator = new WaveformGenerator();
+        double[] carrier = new double[samples];
+        double maskedRate = measure(() -> {
+            for (int start = 0; start < samples; start += SignalChain.BLOCK_SIZE) {
+                maskedGenerator.generateInto("Sine", masked, carrier, start, Math.min(SignalChain.BLOCK_SIZE, samples - start), start);
+            }
+        }, samples);
+        SpectrumEstimate spectrum = SpectrumEstimate.of(carrier, 1 << 16, masked.getSamplingRate());
+        System.out.printf("PN mask   %7.2f MS/s   L(10 kHz) %.1f dBc/Hz (mask -95)   L(100 kHz) %.1f dBc/Hz (mask -110)%n",
+                maskedRate / 1e6, spectrum.dbcPerHz(1.01e6, 0.5, 2), spectrum.dbcPerHz(1.1e6, 0.5, 2));
+
+        /// Shaped 16-QAM from PRBS31 at two oversampling factors
+        for (int samplesPerSymbol : new int[]{2, 4}) {
+            SymbolModulator symbolModulator = new SymbolModulator(new Prbs(31), Constellation.forName("16-QAM"),
+                    25e6, 25e6 * samplesPerSymbol, 10e6);
+            double[] block = new double[1 << 16];
+            double rate = measure(() -> {
+                for (int i = 0; i < 16; i++) {
+                    symbolModulator.read(block, 0, block.length);
+                }
+            }, 16L * block.length);
+            System.out.printf("16-QAM    %d samples/symbol %7.2f MS/s = %6.2f Msymbols/s%n",
+                    samplesPerSymbol, rate / 1e6, rate / samplesPerSymbol / 1e6);
+        }
+
+        /// One second of paced live output per rate into the null sink
+        for (double rate : new double[]{1e6, 1e7}) {
+            WaveformData live = new WaveformData();
+            live.setSamplingRate(rate);
+            try (LiveOutput output = new LiveOutput(new WaveformStream("Sine", live, (long) rate)::read,
+                    SampleSink.nullSink(), rate)) {
+                output.start();
+                output.awaitCompletion();
+                LiveOutput.Stats stats = output.getStats();
+                System.out.printf("Live      %5.1f MS/s paced   %7.2f MS/s achieved   underruns %d   overruns %d   lateness mean %.0f us max %.0f us%n",
+                        rate / 1e6, stats.achievedRate() / 1e6, stats.underruns(), stats.overruns(),
+                        stats.meanLatenessMicros(), stats.maxLatenessMicros());
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    static double measure(Runnable task, long samples) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            task.run();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return samples * MEASURED_RUNS / seconds;
+    }
+
+    /// Single timed pass: modulates total samples in blocks, cycling through message as the input
+    static double measureStreamed(ModulationManager modulationManager, String type, WaveformData data,
+                                  double[] message, long total) {
+        double[] block = new double[SignalChain.BLOCK_SIZE];
+        long start = System.nanoTime();
+        for (long index = 0; index < total; index += block.length) {
+            int count = (int) Math.min(block.length, total - index);
+            int from = (int) (index % (message.length - block.length));
+            System.arraycopy(message, from, block, 0, count);
+            modulationManager.modulateBlock(block, count, index, type, data);
+        }
+        return total / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /// Sample moments and the 4-sigma tail fraction next to their standard normal values
+    static String momentReport(double[] values) {
+        double mean = 0;
+        for (double value : values) {
+            mean += value;
+        }
+        mean /= values.length;
+        double m2 = 0;
+        double m3 = 0;
+        double m4 = 0;
+        long tail = 0;
+        for (double value : values) {
+            double d = value - mean;
+            m2 += d * d;
+            m3 += d * d * d;
+            m4 += d * d * d * d;
+            if (Math.abs(value) > 4) {
+                tail++;
+            }
+        }
+        m2 /= values.length;
+        m3 /= values.length;
+        m4 /= values.length;
+        return String.format("mean %+.4f   variance %.4f (1)   skewness %+.4f (0)   kurtosis %.4f (3)   P(|x|>4) %.2e (6.33e-05)",
+                mean, m2, m3 / Math.pow(m2, 1.5), m4 / (m2 * m2), (double) tail / values.length);
+    }
+
+    static double maxDifference(double[] a, double[] b) {
+        double max = 0;
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            max = Math.max(max, Math.abs(a[i] - b[i]));
+        }
+        return max;
+    }
+}
\ No newline at end of file
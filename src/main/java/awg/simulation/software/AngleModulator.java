@@ -0,0 +1,50 @@
+package awg.simulation.software;
+
+/// Stateful FM/PM/FSK engine. Every sample costs O(1): FM keeps a running integral of the message, FM/PM take
+/// the carrier phase from a QuadratureNco and FSK runs the same NCO in its frequency-step mode. All of it
+/// carries from block to block, so a record split into any blocks gives the same output as one pass and
+/// streaming renders stay phase-continuous at block boundaries.
+public class AngleModulator {
+    private final double modIndex;
+    private final double samplingRate;
+    /// Carrier phase step in cycles per sample, which FSK scales by the message
+    private final double carrierStep;
+    private final QuadratureNco carrier;
+    private double fmIntegral;
+
+    public AngleModulator(double carrierFreq, double modIndex, double samplingRate) {
+        this.modIndex = modIndex;
+        this.samplingRate = samplingRate;
+        this.carrierStep = carrierFreq / samplingRate;
+        this.carrier = new QuadratureNco(carrierFreq, samplingRate);
+    }
+
+    /// Modulates input[inOffset, inOffset + length) into output[outOffset, ...); the two may be the same array.
+    /// Each call continues from the previous one, so callers pass consecutive blocks in order.
+    public void modulate(String modulationType, double[] input, int inOffset, double[] output, int outOffset, int length) {
+        switch (modulationType) {
+            case "FM":
+                for (int i = 0; i < length; i++) {
+                    fmIntegral += input[inOffset + i] * (1.0 / samplingRate);
+                    output[outOffset + i] = Math.sin(2 * Math.PI * carrier.cycles() + modIndex * fmIntegral);
+                    carrier.advance();
+                }
+                break;
+            case "PM":
+                for (int i = 0; i < length; i++) {
+                    output[outOffset + i] = Math.sin(2 * Math.PI * carrier.cycles() + modIndex * input[inOffset + i]);
+                    carrier.advance();
+                }
+                break;
+            case "FSK":
+                /// The instantaneous frequency advances the phase instead of scaling time, so frequency
+                /// changes never make the phase jump
+                for (int i = 0; i < length; i++) {
+                    output[outOffset + i] = carrier.stepSine(carrierStep * (1 + modIndex * input[inOffset + i]));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Not an angle modulation: " + modulationType);
+        }
+    }
+}
\ No newline at end of file
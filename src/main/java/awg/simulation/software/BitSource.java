@@ -0,0 +1,7 @@
+package awg.simulation.software;
+
+/// Endless stream of data bits for the symbol modulator
+public interface BitSource {
+    /// The next count bits (1 to 32), first bit in the most significant position
+    int nextBits(int count);
+}
\ No newline at end of file
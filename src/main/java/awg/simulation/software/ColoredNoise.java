@@ -0,0 +1,130 @@
+package awg.simulation.software;
+
+import java.util.random.RandomGenerator;
+
+/// Spectrally shaped Gaussian noise from white noise and a few filter taps, so every sample costs O(1) and
+/// the filter state carries from block to block: a record generated in any blocks equals one pass.
+///   Pink   (-3 dB/octave)  Paul Kellet's refined sum of one-pole filters, within 0.05 dB of 1/f above fs / 4800
+///   Brown  (-6 dB/octave)  leaky integrator, flat below fs / 6300 instead of running off
+///   Blue   (+3 dB/octave)  first difference of the pink output
+///   Violet (+6 dB/octave)  first difference of the white input
+/// Amplitude is the RMS of the output, like the standard deviation of Gaussian noise.
+public class ColoredNoise {
+    public static final String[] TYPES = {"Pink", "Brown", "Blue", "Violet"};
+    private static final int PINK = 0;
+    private static final int BROWN = 1;
+    private static final int BLUE = 2;
+    private static final int VIOLET = 3;
+    private static final double LEAK = 0.999;
+    /// Discarded after a reset so the slowest pole (time constant ~1000 samples) has settled and the record
+    /// starts stationary instead of fading in
+    private static final int WARMUP = 8192;
+    /// Unit-RMS scale per shape: 1 / sqrt(energy of the impulse response)
+    private static final double[] GAINS = new double[TYPES.length];
+
+    static {
+        for (int shape = 0; shape < TYPES.length; shape++) {
+            double[] impulse = new double[1 << 16];
+            impulse[0] = 1;
+            new ColoredNoise(shape, 1).filter(impulse, 0, impulse.length, 1);
+            double energy = 0;
+            for (double value : impulse) {
+                energy += value * value;
+            }
+            GAINS[shape] = 1 / Math.sqrt(energy);
+        }
+    }
+
+    private final String type;
+    private final int shape;
+    private final double gain;
+    private double b0, b1, b2, b3, b4, b5, b6;
+    private double brown;
+    private double previous;
+
+    public ColoredNoise(String type) {
+        this(shapeOf(type), 0);
+    }
+
+    private ColoredNoise(int shape, double gain) {
+        this.type = TYPES[shape];
+        this.shape = shape;
+        this.gain = gain != 0 ? gain : GAINS[shape];
+    }
+
+    public static boolean isColored(String noiseType) {
+        for (String type : TYPES) {
+            if (type.equals(noiseType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int shapeOf(String type) {
+        for (int shape = 0; shape < TYPES.length; shape++) {
+            if (TYPES[shape].equals(type)) {
+                return shape;
+            }
+        }
+        throw new IllegalArgumentException("Unknown noise color: " + type);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /// Clears the filter state and runs it past its start-up transient on draws from random
+    public void reset(RandomGenerator random) {
+        b0 = b1 = b2 = b3 = b4 = b5 = b6 = 0;
+        brown = 0;
+        previous = 0;
+        double[] warmup = new double[SignalChain.BLOCK_SIZE];
+        for (int done = 0; done < WARMUP; done += warmup.length) {
+            Ziggurat.fill(random, warmup, 0, warmup.length, 0, 1);
+            filter(warmup, 0, warmup.length, 1);
+        }
+    }
+
+    /// Next length samples of the stream into out[offset, ...) at the given RMS amplitude
+    public void fill(RandomGenerator random, double[] out, int offset, int length, double amplitude) {
+        Ziggurat.fill(random, out, offset, length, 0, 1);
+        filter(out, offset, length, amplitude * gain);
+    }
+
+    /// In place: white samples in, shaped samples times scale out
+    private void filter(double[] x, int offset, int length, double scale) {
+        int end = offset + length;
+        switch (shape) {
+            case PINK:
+            case BLUE:
+                boolean blue = shape == BLUE;
+                for (int i = offset; i < end; i++) {
+                    double white = x[i];
+                    b0 = 0.99886 * b0 + white * 0.0555179;
+                    b1 = 0.99332 * b1 + white * 0.0750759;
+                    b2 = 0.96900 * b2 + white * 0.1538520;
+                    b3 = 0.86650 * b3 + white * 0.3104856;
+                    b4 = 0.55000 * b4 + white * 0.5329522;
+                    b5 = -0.7616 * b5 - white * 0.0168980;
+                    double pink = b0 + b1 + b2 + b3 + b4 + b5 + b6 + white * 0.5362;
+                    b6 = white * 0.115926;
+                    x[i] = scale * (blue ? pink - previous : pink);
+                    previous = pink;
+                }
+                break;
+            case BROWN:
+                for (int i = offset; i < end; i++) {
+                    brown = LEAK * brown + x[i];
+                    x[i] = scale * brown;
+                }
+                break;
+            default:
+                for (int i = offset; i < end; i++) {
+                    double white = x[i];
+                    x[i] = scale * (white - previous);
+                    previous = white;
+                }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package awg.simulation.software;
+
+/// Gray-coded symbol maps, scaled to unit average power. Square QAM Gray-codes the in-phase and quadrature
+/// halves of the symbol separately, so neighbouring points differ in one bit; PSK Gray-codes the angle index.
+public class Constellation {
+    public static final String[] NAMES = {"BPSK", "QPSK", "8-PSK", "16-QAM", "64-QAM", "256-QAM"};
+
+    private final String name;
+    private final int bitsPerSymbol;
+    private final double[] inPhase;
+    private final double[] quadrature;
+
+    private Constellation(String name, int bitsPerSymbol, double[] inPhase, double[] quadrature) {
+        this.name = name;
+        this.bitsPerSymbol = bitsPerSymbol;
+        this.inPhase = inPhase;
+        this.quadrature = quadrature;
+        double power = 0;
+        for (int s = 0; s < inPhase.length; s++) {
+            power += inPhase[s] * inPhase[s] + quadrature[s] * quadrature[s];
+        }
+        double scale = 1 / Math.sqrt(power / inPhase.length);
+        for (int s = 0; s < inPhase.length; s++) {
+            inPhase[s] *= scale;
+            quadrature[s] *= scale;
+        }
+    }
+
+    public static Constellation forName(String name) {
+        switch (name) {
+            case "BPSK":
+                return new Constellation(name, 1, new double[]{1, -1}, new double[2]);
+            case "QPSK":
+                return qam(name, 2);
+            case "8-PSK":
+                return psk(name, 3);
+            case "16-QAM":
+                return qam(name, 4);
+            case "64-QAM":
+                return qam(name, 6);
+            case "256-QAM":
+                return qam(name, 8);
+            default:
+                throw new IllegalArgumentException("Unknown constellation: " + name);
+        }
+    }
+
+    private static Constellation psk(String name, int bits) {
+        int points = 1 << bits;
+        double[] inPhase = new double[points];
+        double[] quadrature = new double[points];
+        for (int symbol = 0; symbol < points; symbol++) {
+            double angle = 2 * Math.PI * grayDecode(symbol) / points;
+            inPhase[symbol] = Math.cos(angle);
+            quadrature[symbol] = Math.sin(angle);
+        }
+        return new Constellation(name, bits, inPhase, quadrature);
+    }
+
+    /// Upper half of the bits picks the in-phase level, lower half the quadrature level
+    private static Constellation qam(String name, int bits) {
+        int half = bits / 2;
+        int levels = 1 << half;
+        double[] inPhase = new double[1 << bits];
+        double[] quadrature = new double[1 << bits];
+        for (int symbol = 0; symbol < inPhase.length; symbol++) {
+            inPhase[symbol] = 2 * grayDecode(symbol >>> half) - (levels - 1);
+            quadrature[symbol] = 2 * grayDecode(symbol & (levels - 1)) - (levels - 1);
+        }
+        return new Constellation(name, bits, inPhase, quadrature);
+    }
+
+    private static int grayDecode(int gray) {
+        int value = gray;
+        for (int shift = gray >>> 1; shift != 0; shift >>>= 1) {
+            value ^= shift;
+        }
+        return value;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getBitsPerSymbol() {
+        return bitsPerSymbol;
+    }
+
+    public int size() {
+        return inPhase.length;
+    }
+
+    public double inPhase(int symbol) {
+        return inPhase[symbol];
+    }
+
+    public double quadrature(int symbol) {
+        return quadrature[symbol];
+    }
+
+    /// Largest point magnitude (the outer corner for QAM)
+    public double peakMagnitude() {
+        double peak = 0;
+        for (int s = 0; s < inPhase.length; s++) {
+            peak = Math.max(peak, Math.hypot(inPhase[s], quadrature[s]));
+        }
+        return peak;
+    }
+}
\ No newline at end of file
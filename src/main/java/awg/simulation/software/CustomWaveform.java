@@ -0,0 +1,221 @@
+package awg.simulation.software;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/// User-defined points kept as primitive time/value columns sorted by time.
+/// Times are normalized to the record duration; values between points are linearly interpolated.
+public class CustomWaveform {
+    private static final int INITIAL_CAPACITY = 256;
+    /// Revision stamps are unique across instances, so equal stamps mean the same points
+    private static final AtomicLong REVISION_STAMPS = new AtomicLong();
+    /// Shared frozen instance for snapshots without custom points
+    public static final CustomWaveform EMPTY = new CustomWaveform().frozenCopy();
+
+    private double[] times = new double[INITIAL_CAPACITY];
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int size;
+    private boolean sorted = true;
+    /// Set once a cursor reads the current columns; the next mutation copies them first
+    private boolean shared;
+    /// Renewed on every mutation so renderers can tell the points changed; frozen copies keep it
+    private long revision = REVISION_STAMPS.incrementAndGet();
+    /// Frozen copies back immutable snapshots and reject mutation
+    private boolean frozen;
+
+    public synchronized void add(double time, double value) {
+        checkMutable();
+        if (size == times.length || shared) {
+            int capacity = size == times.length ? size * 2 : times.length;
+            times = Arrays.copyOf(times, capacity);
+            values = Arrays.copyOf(values, capacity);
+            shared = false;
+        }
+        if (size > 0 && time < times[size - 1]) {
+            sorted = false;
+        }
+        times[size] = time;
+        values[size] = value;
+        size++;
+        revision = REVISION_STAMPS.incrementAndGet();
+    }
+
+    public synchronized void clear() {
+        checkMutable();
+        if (shared) {
+            times = new double[INITIAL_CAPACITY];
+            values = new double[INITIAL_CAPACITY];
+            shared = false;
+        }
+        size = 0;
+        sorted = true;
+        revision = REVISION_STAMPS.incrementAndGet();
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getRevision() {
+        return revision;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public synchronized boolean isFrozen() {
+        return frozen;
+    }
+
+    /// Immutable copy of the current points in time order; a frozen instance is returned as is
+    public synchronized CustomWaveform frozenCopy() {
+        if (frozen) {
+            return this;
+        }
+        if (!sorted) {
+            sortByTime();
+        }
+        CustomWaveform copy = new CustomWaveform();
+        copy.times = Arrays.copyOf(times, size);
+        copy.values = Arrays.copyOf(values, size);
+        copy.size = size;
+        copy.revision = revision;
+        copy.shared = true;
+        copy.frozen = true;
+        return copy;
+    }
+
+    /// Time of the earliest point, 0 when there are none
+    public synchronized double startTime() {
+        if (!sorted) {
+            sortByTime();
+        }
+        return size == 0 ? 0 : times[0];
+    }
+
+    /// Interpolated value at a normalized time. Outside the defined range the last point's value is held.
+    public double valueAt(double normalizedT) {
+        return cursor().valueAt(normalizedT);
+    }
+
+    /// Sequential reader: monotonically increasing lookups step the cursor forward in O(1),
+    /// anything else falls back to a binary search
+    public synchronized Cursor cursor() {
+        if (!sorted) {
+            sortByTime();
+        }
+        shared = true;
+        return new Cursor(times, values, size);
+    }
+
+    /// Canonical content (points in time order) for content-addressed caching
+    public synchronized void writeContent(DataOutput out) throws IOException {
+        if (!sorted) {
+            sortByTime();
+        }
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(times[i]);
+            out.writeDouble(values[i]);
+        }
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Custom waveform is frozen");
+        }
+    }
+
+    private void sortByTime() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[size], 0, size);
+        double[] sortedTimes = new double[times.length];
+        double[] sortedValues = new double[values.length];
+        for (int i = 0; i < size; i++) {
+            sortedTimes[i] = times[order[i]];
+            sortedValues[i] = values[order[i]];
+        }
+        times = sortedTimes;
+        values = sortedValues;
+        sorted = true;
+    }
+
+    /// Stable, so points drawn at the same time keep their drawing order
+    private void mergeSort(int[] order, int[] scratch, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(order, scratch, from, middle);
+        mergeSort(order, scratch, middle, to);
+        if (times[order[middle - 1]] <= times[order[middle]]) {
+            return;
+        }
+        System.arraycopy(order, from, scratch, from, to - from);
+        int left = from, right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && times[scratch[left]] <= times[scratch[right]])) {
+                order[i] = scratch[left++];
+            } else {
+                order[i] = scratch[right++];
+            }
+        }
+    }
+
+    public static final class Cursor {
+        private final double[] times;
+        private final double[] values;
+        private final int n;
+        /// Index of the upper point of the segment used by the previous lookup
+        private int upper = 1;
+
+        private Cursor(double[] times, double[] values, int n) {
+            this.times = times;
+            this.values = values;
+            this.n = n;
+        }
+
+        public double valueAt(double normalizedT) {
+            if (n == 0) {
+                return 0;
+            }
+            if (n == 1 || normalizedT > times[n - 1] || normalizedT < times[0]) {
+                return values[n - 1];
+            }
+            if (normalizedT == times[0]) {
+                return values[0];
+            }
+            /// The segment is (times[upper - 1], times[upper]]
+            if (normalizedT <= times[upper - 1] || normalizedT > times[upper]) {
+                if (normalizedT > times[upper] && upper + 1 < n && normalizedT <= times[upper + 1]) {
+                    upper++;
+                } else {
+                    upper = lowerBound(normalizedT);
+                }
+            }
+            double t1 = times[upper - 1], t2 = times[upper];
+            double v1 = values[upper - 1], v2 = values[upper];
+            return v1 + (v2 - v1) * (normalizedT - t1) / (t2 - t1);
+        }
+
+        /// First index whose time is >= t; callers guarantee times[0] < t <= times[n - 1]
+        private int lowerBound(double t) {
+            int low = 1, high = n - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (times[middle] < t) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
\ No newline at end of file
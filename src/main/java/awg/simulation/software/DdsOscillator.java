@@ -0,0 +1,102 @@
+package awg.simulation.software;
+
+public class DdsOscillator {
+    public static final int ACCUMULATOR_BITS = 48;
+    static final long ACCUMULATOR_MASK = (1L << ACCUMULATOR_BITS) - 1;
+    static final double ACCUMULATOR_SCALE = (double) (1L << ACCUMULATOR_BITS);
+    private static final int TABLE_BITS = 12;
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+    private static final int FRACTION_BITS = ACCUMULATOR_BITS - TABLE_BITS;
+    private static final long FRACTION_MASK = (1L << FRACTION_BITS) - 1;
+    private static final double FRACTION_SCALE = 1.0 / (1L << FRACTION_BITS);
+    /// One extra entry so interpolation at the last index never wraps
+    private static final double[] SINE_TABLE = new double[TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            SINE_TABLE[i] = Math.sin(2 * Math.PI * i / TABLE_SIZE);
+        }
+    }
+
+    private long phaseAccumulator;
+    private long tuningWord;
+    private long phaseWord;
+    private long dutyWord = 1L << (ACCUMULATOR_BITS - 1);
+
+    public void setFrequency(double frequency, double samplingRate) {
+        tuningWord = toPhaseWord(frequency / samplingRate);
+    }
+
+    public void setPhase(double radians) {
+        phaseWord = toPhaseWord(radians / (2 * Math.PI));
+    }
+
+    public void setDutyCycle(double dutyCycle) {
+        dutyWord = toPhaseWord(Math.max(0, Math.min(1, dutyCycle)));
+    }
+
+    public long getTuningWord() {
+        return tuningWord;
+    }
+
+    public void setTuningWord(long tuningWord) {
+        this.tuningWord = tuningWord & ACCUMULATOR_MASK;
+    }
+
+    public long getPhaseAccumulator() {
+        return phaseAccumulator;
+    }
+
+    public void setPhaseAccumulator(long phaseAccumulator) {
+        this.phaseAccumulator = phaseAccumulator & ACCUMULATOR_MASK;
+    }
+
+    /// Positions the accumulator at an absolute sample index for a fixed tuning word.
+    /// The product wraps modulo 2^64, which is a multiple of the accumulator range, so the result is exact.
+    public void seek(long sampleIndex) {
+        phaseAccumulator = (tuningWord * sampleIndex) & ACCUMULATOR_MASK;
+    }
+
+    public void advance() {
+        phaseAccumulator = (phaseAccumulator + tuningWord) & ACCUMULATOR_MASK;
+    }
+
+    public double sine() {
+        return sine(0);
+    }
+
+    public double sine(long offsetWord) {
+        return lookup((phaseAccumulator + phaseWord + offsetWord) & ACCUMULATOR_MASK);
+    }
+
+    public double square(long offsetWord) {
+        long phase = (phaseAccumulator + phaseWord + offsetWord) & ACCUMULATOR_MASK;
+        return phase < dutyWord ? 1 : -1;
+    }
+
+    /// Triangle and sawtooth follow the reference generator and ignore the phase setting
+    public double triangle(long offsetWord) {
+        double fraction = ((phaseAccumulator + offsetWord) & ACCUMULATOR_MASK) / ACCUMULATOR_SCALE;
+        return fraction < 0.5 ? 4 * fraction - 1 : 3 - 4 * fraction;
+    }
+
+    public double sawtooth(long offsetWord) {
+        long phase = (phaseAccumulator + offsetWord) & ACCUMULATOR_MASK;
+        double fraction = phase / ACCUMULATOR_SCALE;
+        double duty = dutyWord / ACCUMULATOR_SCALE;
+        return phase < dutyWord ? (fraction / duty) * 2 - 1 : -1 + (fraction - duty) / (1 - duty) * 2;
+    }
+
+    public static long toPhaseWord(double cycles) {
+        double fraction = cycles - Math.floor(cycles);
+        return Math.round(fraction * ACCUMULATOR_SCALE) & ACCUMULATOR_MASK;
+    }
+
+    /// Interpolated sine of an accumulator-range phase word; shared with QuadratureNco's frequency-step mode
+    static double lookup(long phase) {
+        int index = (int) (phase >>> FRACTION_BITS);
+        double fraction = (phase & FRACTION_MASK) * FRACTION_SCALE;
+        double a = SINE_TABLE[index];
+        return a + (SINE_TABLE[index + 1] - a) * fraction;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package awg.simulation.software;
+
+public class DoubleSampleBuffer implements SampleBuffer {
+    private final double[] samples;
+
+    public DoubleSampleBuffer(double[] samples) {
+        this.samples = samples;
+    }
+
+    @Override
+    public long length() {
+        return samples.length;
+    }
+
+    @Override
+    public SamplePrecision precision() {
+        return SamplePrecision.FLOAT64;
+    }
+
+    @Override
+    public double get(long index) {
+        return samples[(int) index];
+    }
+
+    @Override
+    public void set(long index, double value) {
+        samples[(int) index] = value;
+    }
+
+    @Override
+    public void read(long index, double[] block, int offset, int length) {
+        System.arraycopy(samples, (int) index, block, offset, length);
+    }
+
+    @Override
+    public void write(long index, double[] block, int offset, int length) {
+        System.arraycopy(block, offset, samples, (int) index, length);
+    }
+
+    public double[] array() {
+        return samples;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package awg.simulation.software;
+
+/// In-place iterative radix-2 complex FFT of one power-of-two size, with the bit-reversal permutation and
+/// twiddle factors computed once. Forward is X[k] = sum x[n] e^(-2 pi i k n / size); inverse includes 1 / size.
+public class Fft {
+    private final int size;
+    private final int[] reversed;
+    /// Twiddles e^(-i pi k / half) for k < half, stored per stage at offset half so each stage reads them in order
+    private final double[] cos;
+    private final double[] sin;
+
+    public Fft(int size) {
+        if (size < 2 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two: " + size);
+        }
+        this.size = size;
+        this.reversed = new int[size];
+        int bits = Integer.numberOfTrailingZeros(size);
+        for (int i = 0; i < size; i++) {
+            reversed[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+        this.cos = new double[size];
+        this.sin = new double[size];
+        for (int half = 1; half < size; half <<= 1) {
+            for (int k = 0; k < half; k++) {
+                cos[half + k] = Math.cos(Math.PI * k / half);
+                sin[half + k] = Math.sin(Math.PI * k / half);
+            }
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void forward(double[] re, double[] im) {
+        transform(re, im, -1);
+    }
+
+    public void inverse(double[] re, double[] im) {
+        transform(re, im, 1);
+        double scale = 1.0 / size;
+        for (int i = 0; i < size; i++) {
+            re[i] *= scale;
+            im[i] *= scale;
+        }
+    }
+
+    private void transform(double[] re, double[] im, double sign) {
+        for (int i = 0; i < size; i++) {
+            int j = reversed[i];
+            if (i < j) {
+                double t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+        /// Sequential passes: every stage walks the array and its twiddle table front to back
+        for (int i = 0; i < size; i += 2) {
+            double tr = re[i + 1];
+            double ti = im[i + 1];
+            re[i + 1] = re[i] - tr;
+            im[i + 1] = im[i] - ti;
+            re[i] += tr;
+            im[i] += ti;
+        }
+        for (int half = 2; half < size; half <<= 1) {
+            for (int start = 0; start < size; start += half << 1) {
+                for (int k = 0; k < half; k++) {
+                    int i = start + k;
+                    int j = i + half;
+                    double wr = cos[half + k];
+                    double wi = sign * sin[half + k];
+                    double tr = wr * re[j] - wi * im[j];
+                    double ti = wr * im[j] + wi * re[j];
+                    re[j] = re[i] - tr;
+                    im[j] = im[i] - ti;
+                    re[i] += tr;
+                    im[i] += ti;
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package awg.simulation.software;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/// Bits of a file, most significant bit of each byte first, repeated from the start at the end of the file
+public class FileBitSource implements BitSource {
+    private final byte[] data;
+    private long bitIndex;
+
+    public FileBitSource(Path path) throws IOException {
+        this(Files.readAllBytes(path));
+    }
+
+    public FileBitSource(byte[] data) {
+        if (data.length == 0) {
+            throw new IllegalArgumentException("Bit source data must not be empty");
+        }
+        this.data = data.clone();
+    }
+
+    @Override
+    public int nextBits(int count) {
+        int bits = 0;
+        long totalBits = (long) data.length * 8;
+        for (int i = 0; i < count; i++) {
+            int bit = (data[(int) (bitIndex >>> 3)] >>> (7 - (int) (bitIndex & 7))) & 1;
+            bits = (bits << 1) | bit;
+            if (++bitIndex == totalBits) {
+                bitIndex = 0;
+            }
+        }
+        return bits;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+package awg.simulation.software;
+
+public class FloatSampleBuffer implements SampleBuffer {
+    private final float[] samples;
+
+    public FloatSampleBuffer(int length) {
+        this.samples = new float[length];
+    }
+
+    @Override
+    public long length() {
+        return samples.length;
+    }
+
+    @Override
+    public SamplePrecision precision() {
+        return SamplePrecision.FLOAT32;
+    }
+
+    @Override
+    public double get(long index) {
+        return samples[(int) index];
+    }
+
+    @Override
+    public void set(long index, double value) {
+        samples[(int) index] = (float) value;
+    }
+
+    @Override
+    public void read(long index, double[] block, int offset, int length) {
+        int start = (int) index;
+        for (int i = 0; i < length; i++) {
+            block[offset + i] = samples[start + i];
+        }
+    }
+
+    @Override
+    public void write(long index, double[] block, int offset, int length) {
+        int start = (int) index;
+        for (int i = 0; i < length; i++) {
+            samples[start + i] = (float) block[offset + i];
+        }
+    }
+}
\ No newline at end of file
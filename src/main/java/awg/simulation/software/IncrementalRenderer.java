@@ -0,0 +1,200 @@
+package awg.simulation.software;
+
+import java.util.EnumSet;
+import java.util.Objects;
+
+/// Full-record renderer that keeps each stage's output and re-runs only the stages downstream of what changed.
+/// It is fed immutable snapshots: each one is applied to a private WaveformData, whose setters renew the
+/// per-stage revision stamps of the values that differ. A DC-offset drag re-runs offset, quantize, modulation
+/// and clip; a noise-amplitude drag only rescales the cached unit noise. Output matches the
+/// generate/modulate/add-noise path for the same random streams. One thread at a time may use an instance.
+public class IncrementalRenderer {
+    private final WaveformData settings = new WaveformData();
+    private final ModulationManager modulationManager = new ModulationManager();
+    private final long[] seenRevisions = new long[RenderStage.values().length];
+    private final EnumSet<RenderStage> lastRecomputed = EnumSet.noneOf(RenderStage.class);
+
+    private boolean primed;
+    private String lastType;
+    private String lastModulationType;
+    private long lastCustomRevision;
+    private long lastNoiseRevision;
+    private long lastProfileRevision;
+    private long lastSeed;
+
+    private double[] shape;
+    private double[] harmonic;
+    /// Per-sample frequency, only kept while sweeping (burst gating reads it)
+    private double[] frequency;
+    private long quantizerSeed;
+    private double[] mixed;
+    private double[] finished;
+    private double[] modulated;
+    private double[] unitNoise;
+    private boolean noiseActive;
+
+    /// Stages that re-run draw the carrier from RandomSource.forStream(seed, 0) and the noise from
+    /// forStream(seed, 1). Returns a fresh array each call, so callers may keep (or cache) it.
+    public double[] render(WaveformSnapshot snapshot, long seed) {
+        try {
+            settings.apply(snapshot);
+            return renderStages(snapshot, seed);
+        } catch (RuntimeException e) {
+            /// A failed or cancelled render may have left stage outputs half written
+            invalidate();
+            throw e;
+        }
+    }
+
+    private double[] renderStages(WaveformSnapshot snapshot, long seed) {
+        WaveformData data = settings;
+        String type = snapshot.type();
+        String modulationType = snapshot.modulationType();
+        long[] revisions = new long[seenRevisions.length];
+        for (RenderStage stage : RenderStage.values()) {
+            revisions[stage.ordinal()] = data.getRevision(stage);
+        }
+        long customRevision = snapshot.customPoints().getRevision();
+        long noiseRevision = snapshot.customNoise().getRevision();
+        long profileRevision = snapshot.spectralProfile().getRevision();
+        EnumSet<RenderStage> dirty = dirtyStages(type, modulationType, data, revisions, customRevision, noiseRevision,
+                profileRevision, seed);
+        int samples = data.getSamples();
+        boolean modulate = modulationType != null && !modulationType.equals("None");
+
+        if (dirty.contains(RenderStage.CARRIER)) {
+            boolean withHarmonic = data.getHarmonic1Amp() > 0 && !type.equals("Custom");
+            boolean sweep = data.isFrequencySweep() && data.getSweepDuration() > 0;
+            shape = resize(shape, samples);
+            harmonic = withHarmonic ? resize(harmonic, samples) : null;
+            frequency = sweep ? resize(frequency, samples) : null;
+            quantizerSeed = WaveformPipeline.renderCarrier(type, data, snapshot.customPoints(),
+                    RandomSource.forStream(seed, 0), shape, harmonic, frequency);
+        }
+        WaveformRenderService.checkCancelled();
+        if (dirty.contains(RenderStage.MIX)) {
+            mixed = resize(mixed, samples);
+            WaveformPipeline.mix(data, shape, harmonic, mixed);
+        }
+        if (dirty.contains(RenderStage.FINISH)) {
+            finished = resize(finished, samples);
+            System.arraycopy(mixed, 0, finished, 0, samples);
+            WaveformPipeline.finish(data, frequency, quantizerSeed, finished);
+        }
+        WaveformRenderService.checkCancelled();
+        if (dirty.contains(RenderStage.MODULATION)) {
+            modulated = modulate ? modulationManager.applyModulation(finished, modulationType, data) : finished;
+        }
+        WaveformRenderService.checkCancelled();
+        if (dirty.contains(RenderStage.NOISE)) {
+            String noiseType = data.getNoiseType();
+            noiseActive = noiseType != null && !noiseType.equals("None");
+            if (noiseActive) {
+                unitNoise = resize(unitNoise, samples);
+                new NoiseGenerator(snapshot.customNoise(), snapshot.spectralProfile(), data, RandomSource.forStream(seed, 1))
+                        .generateNoise(noiseType, 1.0, unitNoise, samples, 0);
+            } else {
+                unitNoise = null;
+            }
+        }
+
+        double[] output = modulated.clone();
+        double noiseAmplitude = data.getNoiseAmplitude();
+        if (noiseActive && noiseAmplitude > 0) {
+            SampleKernels kernels = data.isVectorBackend() ? SampleKernels.preferred() : SampleKernels.scalar();
+            double[] noise = new double[Math.min(SignalChain.BLOCK_SIZE, samples)];
+            double[] block = new double[noise.length];
+            for (int start = 0; start < samples; start += noise.length) {
+                int count = Math.min(noise.length, samples - start);
+                for (int i = 0; i < count; i++) {
+                    noise[i] = noiseAmplitude * unitNoise[start + i];
+                }
+                System.arraycopy(output, start, block, 0, count);
+                kernels.addClip(block, noise, count);
+                System.arraycopy(block, 0, output, start, count);
+            }
+        }
+        dirty.add(RenderStage.OUTPUT);
+        remember(type, modulationType, revisions, customRevision, noiseRevision, profileRevision, seed);
+        lastRecomputed.clear();
+        lastRecomputed.addAll(dirty);
+        return output;
+    }
+
+    /// Stages the last render() actually ran
+    public EnumSet<RenderStage> getLastRecomputed() {
+        return EnumSet.copyOf(lastRecomputed);
+    }
+
+    /// Forgets all cached stage outputs
+    public void invalidate() {
+        primed = false;
+    }
+
+    private EnumSet<RenderStage> dirtyStages(String type, String modulationType, WaveformData data, long[] revisions,
+                                             long customRevision, long noiseRevision, long profileRevision, long seed) {
+        EnumSet<RenderStage> dirty = EnumSet.noneOf(RenderStage.class);
+        if (!primed || shape == null || shape.length != data.getSamples()) {
+            dirty = EnumSet.allOf(RenderStage.class);
+        } else {
+            for (RenderStage stage : RenderStage.values()) {
+                if (revisions[stage.ordinal()] != seenRevisions[stage.ordinal()]) {
+                    dirty.add(stage);
+                }
+            }
+            if (!type.equals(lastType) || (type.equals("Custom") && customRevision != lastCustomRevision)) {
+                dirty.add(RenderStage.CARRIER);
+            }
+            if (data.getHarmonic1Amp() > 0 && !type.equals("Custom") && harmonic == null) {
+                dirty.add(RenderStage.CARRIER);
+            }
+            if (!Objects.equals(modulationType, lastModulationType)) {
+                dirty.add(RenderStage.MODULATION);
+            }
+            if ("Custom".equals(data.getNoiseType()) && noiseRevision != lastNoiseRevision) {
+                dirty.add(RenderStage.NOISE);
+            }
+            if ("Spectral".equals(data.getNoiseType()) && profileRevision != lastProfileRevision) {
+                dirty.add(RenderStage.NOISE);
+            }
+            /// A new seed only matters to the stages that draw from it. Unit noise is kept whatever the
+            /// amplitude, so it is redrawn even while the amplitude is zero.
+            if (seed != lastSeed) {
+                if (WaveformCache.hasRandomCarrier(data)) {
+                    dirty.add(RenderStage.CARRIER);
+                }
+                if (WaveformCache.hasRandomNoise(data)) {
+                    dirty.add(RenderStage.NOISE);
+                }
+            }
+        }
+        /// Everything downstream of a changed stage re-runs too
+        if (dirty.contains(RenderStage.CARRIER)) {
+            dirty.add(RenderStage.MIX);
+        }
+        if (dirty.contains(RenderStage.MIX)) {
+            dirty.add(RenderStage.FINISH);
+        }
+        if (dirty.contains(RenderStage.FINISH)) {
+            dirty.add(RenderStage.MODULATION);
+        }
+        return dirty;
+    }
+
+    /// Recorded only after a successful render, so a failed one leaves everything dirty
+    private void remember(String type, String modulationType, long[] revisions, long customRevision, long noiseRevision,
+                          long profileRevision, long seed) {
+        primed = true;
+        lastType = type;
+        lastModulationType = modulationType;
+        lastCustomRevision = customRevision;
+        lastNoiseRevision = noiseRevision;
+        lastProfileRevision = profileRevision;
+        lastSeed = seed;
+        System.arraycopy(revisions, 0, seenRevisions, 0, revisions.length);
+    }
+
+    private static double[] resize(double[] array, int length) {
+        return array != null && array.length == length ? array : new double[length];
+    }
+}
\ No newline at end of file
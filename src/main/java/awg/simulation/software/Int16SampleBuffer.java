@@ -0,0 +1,55 @@
+package awg.simulation.software;
+
+public class Int16SampleBuffer implements SampleBuffer {
+    static final double SCALE = 32768.0;
+    private final short[] samples;
+
+    public Int16SampleBuffer(int length) {
+        this.samples = new short[length];
+    }
+
+    @Override
+    public long length() {
+        return samples.length;
+    }
+
+    @Override
+    public SamplePrecision precision() {
+        return SamplePrecision.INT16;
+    }
+
+    @Override
+    public double get(long index) {
+        return samples[(int) index] / SCALE;
+    }
+
+    @Override
+    public void set(long index, double value) {
+        samples[(int) index] = toFixed(value);
+    }
+
+    @Override
+    public void read(long index, double[] block, int offset, int length) {
+        int start = (int) index;
+        for (int i = 0; i < length; i++) {
+            block[offset + i] = samples[start + i] / SCALE;
+        }
+    }
+
+    @Override
+    public void write(long index, double[] block, int offset, int length) {
+        int start = (int) index;
+        for (int i = 0; i < length; i++) {
+            samples[start + i] = toFixed(block[offset + i]);
+        }
+    }
+
+    public short[] array() {
+        return samples;
+    }
+
+    static short toFixed(double value) {
+        long fixed = Math.round(value * SCALE);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, fixed));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,199 @@
+package awg.simulation.software;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/// Live signal source: a producer thread pulls blocks from a source (a WaveformStream, a SequencePlayer, ...)
+/// into a SampleRingBuffer, and a consumer thread drains it into a sink paced to the wall clock at the
+/// sampling rate. The clock starts once the producer has pre-filled half the ring; block k of the output is
+/// then released at start + k * blockSize / samplingRate.
+/// An underrun is a block that was due before the producer had filled it; an overrun is a block the producer
+/// could not hand over at once because the ring was full (harmless backpressure: the engine is ahead).
+public class LiveOutput implements AutoCloseable {
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    /// Same shape as WaveformStream.read and SequencePlayer.read: sample count, or -1 at the end
+    public interface Source {
+        int read(double[] block, int offset, int length);
+    }
+
+    public record Stats(long samplesWritten, long underruns, long overruns, double meanLatenessMicros,
+                        double maxLatenessMicros, double bufferedMillis, double achievedRate) {
+    }
+
+    private final Source source;
+    private final SampleSink sink;
+    private final double samplingRate;
+    private final int blockSize;
+    private final SampleRingBuffer ring;
+    private final Thread producer;
+    private final Thread consumer;
+
+    private volatile boolean producerDone;
+    private volatile Exception failure;
+    /// Written by the consumer only
+    private volatile long samplesWritten;
+    private volatile long underruns;
+    private volatile long blocks;
+    private volatile long totalLatenessNanos;
+    private volatile long maxLatenessNanos;
+    private volatile long startNanos;
+    /// Written by the producer only
+    private volatile long overruns;
+
+    public LiveOutput(Source source, SampleSink sink, double samplingRate) {
+        this(source, sink, samplingRate, 1 << 20, DEFAULT_BLOCK_SIZE);
+    }
+
+    public LiveOutput(Source source, SampleSink sink, double samplingRate, int capacity, int blockSize) {
+        if (!(samplingRate > 0)) {
+            throw new IllegalArgumentException("Sampling rate must be positive");
+        }
+        if (blockSize < 1 || blockSize > capacity) {
+            throw new IllegalArgumentException("Block size must be between 1 and the ring capacity");
+        }
+        this.source = source;
+        this.sink = sink;
+        this.samplingRate = samplingRate;
+        this.blockSize = blockSize;
+        this.ring = new SampleRingBuffer(capacity);
+        this.producer = new Thread(this::produce, "live-output-producer");
+        this.consumer = new Thread(this::consume, "live-output-consumer");
+        producer.setDaemon(true);
+        consumer.setDaemon(true);
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+        producer.start();
+        consumer.start();
+    }
+
+    /// Waits until the source is exhausted and everything has reached the sink
+    public void awaitCompletion() throws InterruptedException {
+        consumer.join();
+    }
+
+    /// Stops both threads, drops whatever is still buffered and closes the sink
+    @Override
+    public void close() throws IOException {
+        producer.interrupt();
+        consumer.interrupt();
+        try {
+            producer.join();
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sink.close();
+    }
+
+    public boolean isRunning() {
+        return consumer.isAlive();
+    }
+
+    /// The source or sink exception that ended the stream early, if any
+    public Exception getFailure() {
+        return failure;
+    }
+
+    public Stats getStats() {
+        long written = samplesWritten;
+        long count = blocks;
+        double elapsed = (System.nanoTime() - startNanos) / 1e9;
+        return new Stats(written, underruns, overruns, count > 0 ? totalLatenessNanos / 1e3 / count : 0,
+                maxLatenessNanos / 1e3, ring.size() * 1e3 / samplingRate, elapsed > 0 ? written / elapsed : 0);
+    }
+
+    private void produce() {
+        double[] block = new double[blockSize];
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                int count = source.read(block, 0, blockSize);
+                if (count < 0) {
+                    break;
+                }
+                int offered = ring.offer(block, 0, count);
+                if (offered < count) {
+                    overruns++;
+                }
+                while (offered < count) {
+                    /// Ring full: wait roughly one block period for the consumer
+                    LockSupport.parkNanos(blockNanos());
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    offered += ring.offer(block, offered, count - offered);
+                }
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            producerDone = true;
+        }
+    }
+
+    private void consume() {
+        double[] block = new double[blockSize];
+        long written = 0;
+        try {
+            while (ring.size() < ring.capacity() / 2 && !producerDone) {
+                LockSupport.parkNanos(blockNanos());
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+            startNanos = System.nanoTime();
+            while (true) {
+                long due = startNanos + (long) (written * 1e9 / samplingRate);
+                if (!parkUntil(due)) {
+                    return;
+                }
+                int filled = ring.poll(block, 0, blockSize);
+                if (filled < blockSize && !producerDone) {
+                    underruns++;
+                    while (filled < blockSize && !producerDone) {
+                        Thread.onSpinWait();
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        filled += ring.poll(block, filled, blockSize - filled);
+                    }
+                }
+                if (filled < blockSize) {
+                    /// The producer finished while we polled; collect its last samples
+                    filled += ring.poll(block, filled, blockSize - filled);
+                }
+                if (filled == 0) {
+                    return;
+                }
+                long lateness = Math.max(0, System.nanoTime() - due);
+                sink.write(block, 0, filled);
+                written += filled;
+                samplesWritten = written;
+                blocks++;
+                totalLatenessNanos += lateness;
+                maxLatenessNanos = Math.max(maxLatenessNanos, lateness);
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            producer.interrupt();
+        }
+    }
+
+    private long blockNanos() {
+        return Math.max(1_000, (long) (blockSize * 1e9 / samplingRate));
+    }
+
+    /// False if interrupted while waiting
+    private static boolean parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+        }
+        return !Thread.currentThread().isInterrupted();
+    }
+}
\ No newline at end of file
@@ -1,6 +1,7 @@
 package awg.simulation.software;
 
 import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
@@ -11,24 +12,35 @@ import javafx.util.Duration;
 import java.io.File;
 
 public class MainController {
-    @FXML private ComboBox<String> waveformType, resolutionCombo, channelSelect, modulationType, noiseType, sweepType;
-    @FXML private TextField samplingRateField, durationField, samplesField, phaseOffsetField, carrierFreqField, modIndexField;
+    @FXML private ComboBox<String> waveformType, resolutionCombo, channelSelect, modulationType, noiseType, sweepType, samplePrecision;
+    @FXML private ComboBox<String> constellation, bitSource;
+    @FXML private TextField samplingRateField, durationField, samplesField, phaseOffsetField, carrierFreqField, modIndexField, symbolRateField;
     @FXML private TextField amplitudeField, frequencyField, phaseField, harmonic1AmpField, harmonic1FreqField;
     @FXML private TextField noiseAmplitudeField, jitterAmountField, driftRateField;
     @FXML private TextField dcOffsetField, dutyCycleField, burstCyclesField, burstPeriodField;
-    @FXML private TextField startFreqField, stopFreqField, sweepDurationField, phaseNoiseField;
+    @FXML private TextField startFreqField, stopFreqField, sweepDurationField, phaseNoiseField, phaseNoiseMaskField, seedField;
     @FXML private Slider samplingRateSlider, amplitudeSlider, frequencySlider, phaseSlider, harmonic1AmpSlider, harmonic1FreqSlider;
     @FXML private Slider dcOffsetSlider, dutyCycleSlider;
-    @FXML private CheckBox syncChannels, iqSignal, quantizationNoise, burstMode, frequencySweep;
+    @FXML private CheckBox syncChannels, iqSignal, quantizationNoise, burstMode, frequencySweep, ddsMode, parallelGeneration, vectorBackend, fixedSeed;
     @FXML private Canvas waveformCanvas;
-    @FXML private Button importCsvButton, importNoiseCsvButton, generateButton, clearCanvasButton;
+    @FXML private Button importCsvButton, importNoiseCsvButton, importNoisePsdButton, importBitsButton, generateButton, generateAllButton, clearCanvasButton;
     @FXML private ToggleButton drawToggle;
+    @FXML private ProgressIndicator renderProgress;
 
     private WaveformGenerator waveformGenerator = new WaveformGenerator();
-    private ModulationManager modulationManager = new ModulationManager();
     private NoiseGenerator noiseGenerator = new NoiseGenerator();
+    private ParallelWaveformGenerator parallelGenerator = new ParallelWaveformGenerator();
+    /// Used by the render thread only
+    private final IncrementalRenderer incrementalRenderer = new IncrementalRenderer();
+    private WaveformCache waveformCache = new WaveformCache();
+    private MultiChannelEngine multiChannelEngine = new MultiChannelEngine();
+    /// Settings of each channel as last left; a channel not yet visited starts from the one being left
+    private WaveformSnapshot[] channelSettings = new WaveformSnapshot[MultiChannelEngine.CHANNELS];
     private WaveformData waveformData = new WaveformData();
     private PauseTransition debounce = new PauseTransition(Duration.millis(200));
+    /// Only jobs still running after this delay show the progress indicator
+    private PauseTransition progressDelay = new PauseTransition(Duration.millis(250));
+    private WaveformRenderService renderService = new WaveformRenderService(Platform::runLater);
 
     @FXML
     public void initialize() {
@@ -38,12 +50,20 @@ public class MainController {
         resolutionCombo.setValue("8-bit");
         channelSelect.getItems().addAll("Channel 1", "Channel 2", "Channel 3", "Channel 4");
         channelSelect.setValue("Channel 1");
-        modulationType.getItems().addAll("AM", "FM", "PM", "FSK", "PSK", "QAM", "None");
+        modulationType.getItems().addAll("AM", "FM", "PM", "FSK", "PSK", "QAM", "Digital", "None");
         modulationType.setValue("None");
-        noiseType.getItems().addAll("None", "White", "Gaussian", "Custom");
+        constellation.getItems().addAll(Constellation.NAMES);
+        constellation.setValue("QPSK");
+        bitSource.getItems().addAll(SymbolModulator.BIT_SOURCES);
+        bitSource.setValue("PRBS9");
+        noiseType.getItems().addAll("None", "White", "Gaussian", "Pink", "Brown", "Blue", "Violet", "Spectral", "Custom");
         noiseType.setValue("None");
         sweepType.getItems().addAll("Linear", "Logarithmic");
         sweepType.setValue("Linear");
+        for (SamplePrecision precision : SamplePrecision.values()) {
+            samplePrecision.getItems().add(precision.getLabel());
+        }
+        samplePrecision.setValue(SamplePrecision.FLOAT64.getLabel());
 
         /// Bind sliders to text fields and waveformData
         samplingRateSlider.valueProperty().addListener((obs, old, newVal) -> {
@@ -95,6 +115,7 @@ public class MainController {
         harmonic1FreqField.setText("2");
         carrierFreqField.setText("10000");
         modIndexField.setText("1.0");
+        symbolRateField.setText("100000");
         phaseOffsetField.setText("0");
         noiseAmplitudeField.setText("0");
         jitterAmountField.setText("0");
@@ -186,6 +207,17 @@ public class MainController {
                 modIndexField.setText("1.0");
             }
         });
+        symbolRateField.textProperty().addListener((obs, old, newVal) -> {
+            try {
+                double value = Double.parseDouble(newVal);
+                value = Math.max(1, value); // Ensure positive symbol rate
+                symbolRateField.setText(String.format("%.0f", value));
+                waveformData.setSymbolRate(value);
+                updatePreview();
+            } catch (NumberFormatException e) {
+                symbolRateField.setText("100000");
+            }
+        });
         phaseOffsetField.textProperty().addListener((obs, old, newVal) -> {
             try {
                 double value = Double.parseDouble(newVal);
@@ -317,6 +349,18 @@ public class MainController {
                 phaseNoiseField.setText("0");
             }
         });
+        /// Only complete masks reach the settings, so a half-typed point leaves the last valid mask in place
+        phaseNoiseMaskField.textProperty().addListener((obs, old, newVal) -> {
+            try {
+                if (PhaseNoiseMask.isActive(newVal)) {
+                    PhaseNoiseMask.parse(newVal);
+                }
+                waveformData.setPhaseNoiseMask(newVal.trim());
+                updatePreview();
+            } catch (IllegalArgumentException e) {
+                /// Keep the previous mask until the input parses
+            }
+        });
 
         // Bind CheckBox and ComboBox
         iqSignal.selectedProperty().addListener((obs, old, newVal) -> {
@@ -328,12 +372,27 @@ public class MainController {
             updatePreview();
         });
         channelSelect.valueProperty().addListener((obs, old, newVal) -> {
+            if (old != null) {
+                channelSettings[channelIndex(old)] = currentSettings();
+            }
             waveformData.setSelectedChannel(newVal);
+            WaveformSnapshot stored = channelSettings[channelIndex(newVal)];
+            if (stored != null) {
+                applyChannelSettings(stored);
+            }
             updatePreview();
         });
         modulationType.valueProperty().addListener((obs, old, newVal) -> {
             updatePreview();
         });
+        constellation.valueProperty().addListener((obs, old, newVal) -> {
+            waveformData.setConstellation(newVal);
+            updatePreview();
+        });
+        bitSource.valueProperty().addListener((obs, old, newVal) -> {
+            waveformData.setBitSource(newVal);
+            updatePreview();
+        });
         noiseType.valueProperty().addListener((obs, old, newVal) -> {
             waveformData.setNoiseType(newVal);
             updatePreview();
@@ -354,6 +413,34 @@ public class MainController {
             waveformData.setSweepType(newVal);
             updatePreview();
         });
+        ddsMode.selectedProperty().addListener((obs, old, newVal) -> {
+            waveformData.setDdsMode(newVal);
+            updatePreview();
+        });
+        parallelGeneration.selectedProperty().addListener((obs, old, newVal) -> {
+            waveformData.setParallelGeneration(newVal);
+            updatePreview();
+        });
+        vectorBackend.selectedProperty().addListener((obs, old, newVal) -> {
+            waveformData.setVectorBackend(newVal);
+            updatePreview();
+        });
+        samplePrecision.valueProperty().addListener((obs, old, newVal) -> {
+            waveformData.setSamplePrecision(newVal);
+            updatePreview();
+        });
+        fixedSeed.selectedProperty().addListener((obs, old, newVal) -> {
+            waveformData.setFixedSeed(newVal);
+            updatePreview();
+        });
+        seedField.textProperty().addListener((obs, old, newVal) -> {
+            try {
+                waveformData.setSeed(Long.parseLong(newVal));
+                updatePreview();
+            } catch (NumberFormatException e) {
+                seedField.setText("0");
+            }
+        });
 
         resolutionCombo.setOnAction(e -> waveformData.setResolution(resolutionCombo.getValue()));
         durationField.textProperty().addListener((obs, old, newVal) -> updateSamples());
@@ -364,6 +451,7 @@ public class MainController {
 
         /// Debounce preview updates
         debounce.setOnFinished(e -> generateWaveform(false));
+        progressDelay.setOnFinished(e -> renderProgress.setVisible(renderService.isBusy()));
         waveformType.valueProperty().addListener((obs, old, newVal) -> updatePreview());
     }
 
@@ -375,7 +463,7 @@ public class MainController {
         if (file != null) {
             try {
                 waveformGenerator.importCsv(file);
-                drawWaveform(waveformGenerator.getWaveform());
+                generateWaveform(false);
             } catch (Exception e) {
                 showAlert("Error", "Failed to import CSV: " + e.getMessage());
             }
@@ -397,6 +485,39 @@ public class MainController {
         }
     }
 
+    @FXML
+    private void importNoisePsd() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+        File file = fileChooser.showOpenDialog(null);
+        if (file != null) {
+            try {
+                noiseGenerator.importNoisePsdCsv(file);
+                noiseType.setValue("Spectral");
+                updatePreview();
+            } catch (Exception e) {
+                showAlert("Error", "Failed to import noise PSD: " + e.getMessage());
+            }
+        }
+    }
+
+    @FXML
+    private void importBits() {
+        FileChooser fileChooser = new FileChooser();
+        File file = fileChooser.showOpenDialog(null);
+        if (file != null) {
+            try {
+                /// Rejects unreadable and empty files before they reach the settings
+                new FileBitSource(file.toPath());
+                waveformData.setBitFile(file.getPath());
+                bitSource.setValue("File");
+                updatePreview();
+            } catch (Exception e) {
+                showAlert("Error", "Failed to import bits: " + e.getMessage());
+            }
+        }
+    }
+
     @FXML
     private void toggleDrawMode() {
         if (drawToggle.isSelected()) {
@@ -439,31 +560,160 @@ public class MainController {
             return;
         }
 
-        if (type.equals("Custom") && waveformGenerator.getWaveform() == null) {
+        if (type.equals("Custom") && waveformGenerator.getCustomWaveform().isEmpty()) {
             if (applyModulation) showAlert("Warning", "Please draw a custom waveform or import a CSV.");
             return;
         }
 
-        try {
-            waveformGenerator.setWaveformData(waveformData);
-            double[] waveform = waveformGenerator.generateWaveform(type, waveformData);
-            String modType = modulationType.getValue();
+        /// The job reads only this immutable snapshot, so later edits and imports never race it
+        WaveformSnapshot snapshot = currentSettings();
+        progressDelay.playFromStart();
+        renderService.submit(() -> renderWaveform(snapshot),
+                rendered -> {
+                    hideProgress();
+                    drawWaveform(rendered);
+                },
+                e -> {
+                    hideProgress();
+                    if (applyModulation) showAlert("Error", "Failed to generate waveform: " + e.getMessage());
+                });
+    }
+
+    @FXML
+    private void generateAllChannels() {
+        int selected = channelIndex(channelSelect.getValue());
+        channelSettings[selected] = currentSettings();
+        WaveformSnapshot[] channels = new WaveformSnapshot[channelSettings.length];
+        for (int c = 0; c < channels.length; c++) {
+            channels[c] = channelSettings[c] != null ? channelSettings[c] : channelSettings[selected];
+            if (channels[c].type().equals("Custom") && channels[c].customPoints().isEmpty()) {
+                showAlert("Warning", "Channel " + (c + 1) + " uses a custom waveform without points.");
+                return;
+            }
+        }
+        long seed = waveformData.isFixedSeed() ? waveformData.getSeed() : RandomSource.randomSeed();
+        MultiChannelEngine engine = multiChannelEngine;
+        progressDelay.playFromStart();
+        renderService.submit(() -> engine.render(channels, seed),
+                rendered -> {
+                    hideProgress();
+                    drawChannels(rendered);
+                },
+                e -> {
+                    hideProgress();
+                    showAlert("Error", "Failed to generate channels: " + e.getMessage());
+                });
+    }
+
+    private WaveformSnapshot currentSettings() {
+        return waveformData.snapshot(waveformType.getValue(), modulationType.getValue(),
+                waveformGenerator.getCustomWaveform(), noiseGenerator.getCustomNoise(), noiseGenerator.getSpectralProfile());
+    }
+
+    /// Loads stored channel settings into the controls; their listeners update waveformData.
+    /// Drawn or imported custom points stay with the editor and are not swapped per channel.
+    private void applyChannelSettings(WaveformSnapshot settings) {
+        waveformType.setValue(settings.type());
+        modulationType.setValue(settings.modulationType());
+        samplingRateSlider.setValue(settings.samplingRate());
+        samplesField.setText(String.valueOf(settings.samples()));
+        resolutionCombo.setValue(settings.resolution());
+        amplitudeSlider.setValue(settings.amplitude());
+        frequencySlider.setValue(settings.frequency());
+        phaseSlider.setValue(settings.phase());
+        harmonic1AmpSlider.setValue(settings.harmonic1Amp());
+        harmonic1FreqSlider.setValue(settings.harmonic1Freq());
+        carrierFreqField.setText(String.valueOf(settings.carrierFreq()));
+        modIndexField.setText(String.valueOf(settings.modIndex()));
+        iqSignal.setSelected(settings.iqSignal());
+        constellation.setValue(settings.constellation());
+        symbolRateField.setText(String.valueOf(settings.symbolRate()));
+        /// The bit file has no control of its own; set it before the source so "File" finds it
+        waveformData.setBitFile(settings.bitFile());
+        bitSource.setValue(settings.bitSource());
+        phaseOffsetField.setText(String.valueOf(settings.phaseOffset()));
+        syncChannels.setSelected(settings.syncChannels());
+        noiseType.setValue(settings.noiseType());
+        noiseAmplitudeField.setText(String.valueOf(settings.noiseAmplitude()));
+        jitterAmountField.setText(String.valueOf(settings.jitterAmount()));
+        driftRateField.setText(String.valueOf(settings.driftRate()));
+        quantizationNoise.setSelected(settings.quantizationNoise());
+        dcOffsetSlider.setValue(settings.dcOffset());
+        dutyCycleSlider.setValue(settings.dutyCycle());
+        burstMode.setSelected(settings.burstMode());
+        burstCyclesField.setText(String.valueOf(settings.burstCycles()));
+        burstPeriodField.setText(String.valueOf(settings.burstPeriod()));
+        frequencySweep.setSelected(settings.frequencySweep());
+        sweepType.setValue(settings.sweepType());
+        startFreqField.setText(String.valueOf(settings.startFreq()));
+        stopFreqField.setText(String.valueOf(settings.stopFreq()));
+        sweepDurationField.setText(String.valueOf(settings.sweepDuration()));
+        phaseNoiseField.setText(String.valueOf(settings.phaseNoise()));
+        phaseNoiseMaskField.setText(settings.phaseNoiseMask());
+        ddsMode.setSelected(settings.ddsMode());
+        parallelGeneration.setSelected(settings.parallelGeneration());
+        vectorBackend.setSelected(settings.vectorBackend());
+        samplePrecision.setValue(settings.samplePrecision());
+        seedField.setText(String.valueOf(settings.seed()));
+        fixedSeed.setSelected(settings.fixedSeed());
+    }
+
+    private static int channelIndex(String channel) {
+        return Integer.parseInt(channel.substring(channel.lastIndexOf(' ') + 1)) - 1;
+    }
+
+    /// Runs on the render thread. Reads only the snapshot, and every engine it uses is private to the render
+    /// thread or created here, so nothing it touches is mutated from the FX thread.
+    private SampleBuffer renderWaveform(WaveformSnapshot snapshot) {
+        String type = snapshot.type();
+        String modType = snapshot.modulationType();
+        WaveformData data = snapshot.toData();
+        WaveformCache.Key key = WaveformCache.isCacheable(data)
+                ? WaveformCache.keyFor(type, modType, data, snapshot.customPoints(), snapshot.customNoise(),
+                        snapshot.spectralProfile())
+                : null;
+        SampleBuffer cached = key != null ? waveformCache.get(key) : null;
+        if (cached != null) {
+            return cached;
+        }
+        /// Generation and noise draw from streams 0 and 1 of this seed, so a fixed seed reproduces the record
+        long seed = data.isFixedSeed() ? data.getSeed() : RandomSource.randomSeed();
+        SampleBuffer rendered;
+        SamplePrecision precision = SamplePrecision.fromLabel(data.getSamplePrecision());
+        if (precision == SamplePrecision.FLOAT64 && !data.isParallelGeneration() && !data.isDdsMode() && !data.isVectorBackend()) {
+            /// Reference path: only the stages downstream of the changed parameters are re-run
+            rendered = new DoubleSampleBuffer(incrementalRenderer.render(snapshot, seed));
+        } else if (precision == SamplePrecision.FLOAT64 && data.isParallelGeneration()) {
+            WaveformGenerator generator = new WaveformGenerator(snapshot.customPoints(), RandomSource.forStream(seed, 0));
+            double[] waveform = parallelGenerator.generateWaveform(generator, type, data);
             if (modType != null && !modType.equals("None")) {
-                waveform = modulationManager.applyModulation(waveform, modType, waveformData);
+                waveform = new ModulationManager().applyModulation(waveform, modType, data);
             }
             /// Apply noise
-            String noiseType = waveformData.getNoiseType();
-            double noiseAmplitude = waveformData.getNoiseAmplitude();
+            String noiseType = data.getNoiseType();
+            double noiseAmplitude = data.getNoiseAmplitude();
             if (noiseType != null && !noiseType.equals("None") && noiseAmplitude > 0) {
-                double[] noise = noiseGenerator.generateNoise(noiseType, noiseAmplitude, waveform.length);
-                for (int i = 0; i < waveform.length; i++) {
-                    waveform[i] = Math.max(-1, Math.min(1, waveform[i] + noise[i]));
-                }
+                double[] noise = new NoiseGenerator(snapshot.customNoise(), snapshot.spectralProfile(), data,
+                        RandomSource.forStream(seed, 1))
+                        .generateNoise(noiseType, noiseAmplitude, waveform.length);
+                SampleKernels kernels = data.isVectorBackend() ? SampleKernels.preferred() : SampleKernels.scalar();
+                kernels.addClip(waveform, noise, waveform.length);
             }
-            drawWaveform(waveform);
-        } catch (Exception e) {
-            if (applyModulation) showAlert("Error", "Failed to generate waveform: " + e.getMessage());
+            rendered = new DoubleSampleBuffer(waveform);
+        } else {
+            /// Reduced precision, DDS and vector kernels render block by block straight into the record buffer
+            rendered = precision.allocate(data.getSamples());
+            SignalChain.render(snapshot, seed, rendered);
+        }
+        if (key != null) {
+            waveformCache.put(key, rendered);
         }
+        return rendered;
+    }
+
+    private void hideProgress() {
+        progressDelay.stop();
+        renderProgress.setVisible(false);
     }
 
     private void updatePreview() {
@@ -503,17 +753,31 @@ public class MainController {
         gc.fillText(String.format("%.3fs", duration), width - 30, height / 2 + 15);
     }
 
-    private void drawWaveform(double[] waveform) {
+    private void drawWaveform(SampleBuffer waveform) {
+        drawGrid();
+        strokeWaveform(waveform, Color.web("#FFFF00"));
+    }
+
+    /// All channels overlaid on one grid, one trace color per channel
+    private void drawChannels(MultiChannelBuffer channels) {
+        Color[] colors = {Color.web("#FFFF00"), Color.web("#00FFFF"), Color.web("#FF00FF"), Color.web("#00FF00")};
+        drawGrid();
+        for (int c = 0; c < channels.getChannelCount(); c++) {
+            strokeWaveform(channels.channel(c), colors[c % colors.length]);
+        }
+    }
+
+    private void strokeWaveform(SampleBuffer waveform, Color color) {
         GraphicsContext gc = waveformCanvas.getGraphicsContext2D();
         double width = waveformCanvas.getWidth();
         double height = waveformCanvas.getHeight();
-        drawGrid();
-        gc.setStroke(Color.web("#FFFF00"));
+        long length = waveform.length();
+        gc.setStroke(color);
         gc.setLineWidth(2);
         gc.beginPath();
-        for (int i = 0; i < waveform.length; i++) {
-            double x = (double) i / waveform.length * width;
-            double y = (1 - waveform[i]) * height / 2;
+        for (long i = 0; i < length; i++) {
+            double x = (double) i / length * width;
+            double y = (1 - waveform.get(i)) * height / 2;
             if (i == 0) gc.moveTo(x, y);
             else gc.lineTo(x, y);
         }
@@ -1,49 +1,175 @@
 package awg.simulation.software;
 
 public class ModulationManager {
+    private static final int KERNEL_BLOCK_SIZE = 4096;
+    /// Carrier, FM/PM/FSK and symbol stream state carried between consecutive modulateBlock calls
+    private QuadratureNco carrier;
+    private AngleModulator angleModulator;
+    private SymbolModulator symbolModulator;
+    private long nextBlockIndex;
+
+    /// Reentrant entry point: the snapshot's modulation applied on a fresh manager
+    public static double[] modulate(double[] waveform, WaveformSnapshot snapshot) {
+        String modulationType = snapshot.modulationType();
+        if (modulationType == null || modulationType.equals("None")) {
+            return waveform.clone();
+        }
+        return new ModulationManager().applyModulation(waveform, modulationType, snapshot.toData());
+    }
+
     public double[] applyModulation(double[] waveform, String modulationType, WaveformData data) {
+        if (data.isVectorBackend() && "AM".equals(modulationType)) {
+            return applyAmKernels(waveform, data);
+        }
         double[] modulated = new double[waveform.length];
         double carrierFreq = data.getCarrierFreq();
         double modIndex = data.getModIndex();
         double samplingRate = data.getSamplingRate();
-        boolean iqSignal = data.isIqSignal();
-        for (int i = 0; i < waveform.length; i++) {
-            double t = (double) i / samplingRate;
-            double carrier = Math.sin(2 * Math.PI * carrierFreq * t);
+        QuadratureNco nco = new QuadratureNco(carrierFreq, samplingRate);
+        /// Resolve the modulation type once; each branch below is a dedicated loop
+        switch (modulationType) {
+            case "AM":
+            case "PSK":
+                applyCarrier(waveform, modulated, modulationType, nco, modIndex);
+                break;
+            case "FM":
+            case "PM":
+            case "FSK":
+                applyAngle(waveform, modulated, modulationType, carrierFreq, modIndex, samplingRate);
+                break;
+            case "QAM":
+                if (data.isIqSignal()) {
+                    applyCarrier(waveform, modulated, modulationType, nco, modIndex);
+                } else {
+                    System.arraycopy(waveform, 0, modulated, 0, waveform.length);
+                }
+                break;
+            case "Digital":
+                applyDigital(modulated, data);
+                break;
+            default:
+                System.arraycopy(waveform, 0, modulated, 0, waveform.length);
+        }
+        return modulated;
+    }
+
+    /// In-place block form of applyModulation for samples startSampleIndex onward. Blocks must arrive in
+    /// order from index 0 because FM and FSK carry their phase through the whole history; the carrier NCO and
+    /// the angle modulator run the same per-sample steps as the array form, so the results are identical.
+    public void modulateBlock(double[] block, int length, long startSampleIndex, String modulationType, WaveformData data) {
+        double carrierFreq = data.getCarrierFreq();
+        double modIndex = data.getModIndex();
+        double samplingRate = data.getSamplingRate();
+        if (startSampleIndex == 0) {
+            carrier = new QuadratureNco(carrierFreq, samplingRate);
+            angleModulator = new AngleModulator(carrierFreq, modIndex, samplingRate);
+            symbolModulator = modulationType.equals("Digital") ? SymbolModulator.forData(data) : null;
+        } else if (startSampleIndex != nextBlockIndex) {
+            throw new IllegalStateException("Modulation blocks must be contiguous, expected sample " + nextBlockIndex);
+        }
+        nextBlockIndex = startSampleIndex + length;
+        switch (modulationType) {
+            case "AM":
+                applyAm(block, block, 0, length, carrier, modIndex);
+                break;
+            case "FM":
+            case "PM":
+            case "FSK":
+                angleModulator.modulate(modulationType, block, 0, block, 0, length);
+                break;
+            case "PSK":
+                applyPsk(block, block, 0, length, carrier, modIndex);
+                break;
+            case "QAM":
+                if (data.isIqSignal()) {
+                    applyQam(block, block, 0, length, carrier);
+                }
+                break;
+            case "Digital":
+                symbolModulator.read(block, 0, length);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /// AM, PSK and QAM over a whole record; like applyAngle, the cancellation check runs between blocks
+    private static void applyCarrier(double[] waveform, double[] modulated, String modulationType,
+                                     QuadratureNco carrier, double modIndex) {
+        for (int start = 0; start < waveform.length; start += KERNEL_BLOCK_SIZE) {
+            WaveformRenderService.checkCancelled();
+            int count = Math.min(KERNEL_BLOCK_SIZE, waveform.length - start);
             switch (modulationType) {
                 case "AM":
-                    modulated[i] = waveform[i] * (1 + modIndex * carrier);
-                    break;
-                case "FM":
-                    double integral = 0;
-                    for (int j = 0; j <= i; j++) {
-                        integral += waveform[j] * (1.0 / samplingRate);
-                    }
-                    modulated[i] = Math.sin(2 * Math.PI * carrierFreq * t + modIndex * integral);
-                    break;
-                case "PM":
-                    modulated[i] = Math.sin(2 * Math.PI * carrierFreq * t + modIndex * waveform[i]);
-                    break;
-                case "FSK":
-                    double freq = carrierFreq + modIndex * waveform[i] * carrierFreq;
-                    modulated[i] = Math.sin(2 * Math.PI * freq * t);
+                    applyAm(waveform, modulated, start, count, carrier, modIndex);
                     break;
                 case "PSK":
-                    modulated[i] = waveform[i] * Math.cos(modIndex * carrier);
-                    break;
-                case "QAM":
-                    if (iqSignal) {
-                        double iSignal = waveform[i] * Math.cos(2 * Math.PI * carrierFreq * t);
-                        double qSignal = waveform[i] * Math.sin(2 * Math.PI * carrierFreq * t);
-                        modulated[i] = iSignal + qSignal;
-                    } else {
-                        modulated[i] = waveform[i];
-                    }
+                    applyPsk(waveform, modulated, start, count, carrier, modIndex);
                     break;
                 default:
-                    modulated[i] = waveform[i];
+                    applyQam(waveform, modulated, start, count, carrier);
             }
         }
+    }
+
+    /// Digital PSK/QAM replaces the waveform with the shaped symbol stream (see SymbolModulator)
+    private static void applyDigital(double[] modulated, WaveformData data) {
+        SymbolModulator symbols = SymbolModulator.forData(data);
+        for (int start = 0; start < modulated.length; start += KERNEL_BLOCK_SIZE) {
+            WaveformRenderService.checkCancelled();
+            symbols.read(modulated, start, Math.min(KERNEL_BLOCK_SIZE, modulated.length - start));
+        }
+    }
+
+    /// The loops below read and write [offset, offset + length) and may run in place
+    private static void applyAm(double[] waveform, double[] modulated, int offset, int length, QuadratureNco carrier, double modIndex) {
+        for (int i = offset; i < offset + length; i++) {
+            modulated[i] = waveform[i] * (1 + modIndex * carrier.sin());
+            carrier.advance();
+        }
+    }
+
+    /// One O(N) pass; the cancellation check runs between blocks
+    private static void applyAngle(double[] waveform, double[] modulated, String modulationType,
+                                   double carrierFreq, double modIndex, double samplingRate) {
+        AngleModulator modulator = new AngleModulator(carrierFreq, modIndex, samplingRate);
+        for (int start = 0; start < waveform.length; start += KERNEL_BLOCK_SIZE) {
+            WaveformRenderService.checkCancelled();
+            int count = Math.min(KERNEL_BLOCK_SIZE, waveform.length - start);
+            modulator.modulate(modulationType, waveform, start, modulated, start, count);
+        }
+    }
+
+    private static void applyPsk(double[] waveform, double[] modulated, int offset, int length, QuadratureNco carrier, double modIndex) {
+        for (int i = offset; i < offset + length; i++) {
+            modulated[i] = waveform[i] * Math.cos(modIndex * carrier.sin());
+            carrier.advance();
+        }
+    }
+
+    private static void applyQam(double[] waveform, double[] modulated, int offset, int length, QuadratureNco carrier) {
+        for (int i = offset; i < offset + length; i++) {
+            double iSignal = waveform[i] * carrier.cos();
+            double qSignal = waveform[i] * carrier.sin();
+            modulated[i] = iSignal + qSignal;
+            carrier.advance();
+        }
+    }
+
+    private double[] applyAmKernels(double[] waveform, WaveformData data) {
+        SampleKernels kernels = SampleKernels.preferred();
+        double[] modulated = new double[waveform.length];
+        double[] carrier = new double[KERNEL_BLOCK_SIZE];
+        double[] block = new double[KERNEL_BLOCK_SIZE];
+        QuadratureNco nco = new QuadratureNco(data.getCarrierFreq(), data.getSamplingRate());
+        for (int start = 0; start < waveform.length; start += KERNEL_BLOCK_SIZE) {
+            WaveformRenderService.checkCancelled();
+            int count = Math.min(KERNEL_BLOCK_SIZE, waveform.length - start);
+            nco.quadrature(null, carrier, 0, count);
+            System.arraycopy(waveform, start, block, 0, count);
+            kernels.amModulate(block, carrier, block, count, data.getModIndex());
+            System.arraycopy(block, 0, modulated, start, count);
+        }
         return modulated;
     }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package awg.simulation.software;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/// Equal-length records of all channels on one sample clock. Stored planar (one SampleBuffer per channel);
+/// interleaved frames (ch1, ch2, ... per sample) are produced on demand.
+public class MultiChannelBuffer {
+    private static final int BLOCK_SIZE = 4096;
+
+    private final SampleBuffer[] channels;
+    private final double samplingRate;
+
+    public MultiChannelBuffer(SampleBuffer[] channels, double samplingRate) {
+        for (SampleBuffer channel : channels) {
+            if (channel.length() != channels[0].length()) {
+                throw new IllegalArgumentException("All channels must have the same length");
+            }
+        }
+        this.channels = channels.clone();
+        this.samplingRate = samplingRate;
+    }
+
+    public int getChannelCount() {
+        return channels.length;
+    }
+
+    /// Samples per channel
+    public long length() {
+        return channels.length == 0 ? 0 : channels[0].length();
+    }
+
+    public double getSamplingRate() {
+        return samplingRate;
+    }
+
+    /// Planar view of one channel (0-based)
+    public SampleBuffer channel(int index) {
+        return channels[index];
+    }
+
+    /// Interleaved copy: sample i of channel c lands at i * channelCount + c
+    public SampleBuffer interleave(SamplePrecision precision) {
+        int count = channels.length;
+        long frames = length();
+        if (frames * count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Interleaved record too large for a heap buffer");
+        }
+        SampleBuffer output = precision.allocate((int) (frames * count));
+        double[] block = new double[BLOCK_SIZE];
+        double[] frame = new double[BLOCK_SIZE * count];
+        for (long start = 0; start < frames; start += BLOCK_SIZE) {
+            int n = (int) Math.min(BLOCK_SIZE, frames - start);
+            for (int c = 0; c < count; c++) {
+                channels[c].read(start, block, 0, n);
+                for (int i = 0; i < n; i++) {
+                    frame[i * count + c] = block[i];
+                }
+            }
+            output.write(start * count, frame, 0, n * count);
+        }
+        return output;
+    }
+
+    /// Writes interleaved raw little-endian frames in the given precision, block by block
+    public void exportInterleaved(WritableByteChannel out, SamplePrecision precision) throws IOException {
+        int count = channels.length;
+        long frames = length();
+        double[] block = new double[BLOCK_SIZE];
+        double[] frame = new double[BLOCK_SIZE * count];
+        ByteBuffer bytes = ByteBuffer.allocate(frame.length * precision.getBytesPerSample()).order(ByteOrder.LITTLE_ENDIAN);
+        for (long start = 0; start < frames; start += BLOCK_SIZE) {
+            int n = (int) Math.min(BLOCK_SIZE, frames - start);
+            for (int c = 0; c < count; c++) {
+                channels[c].read(start, block, 0, n);
+                for (int i = 0; i < n; i++) {
+                    frame[i * count + c] = block[i];
+                }
+            }
+            bytes.clear();
+            for (int i = 0; i < n * count; i++) {
+                switch (precision) {
+                    case FLOAT32:
+                        bytes.putFloat((float) frame[i]);
+                        break;
+                    case INT16:
+                        bytes.putShort(Int16SampleBuffer.toFixed(frame[i]));
+                        break;
+                    default:
+                        bytes.putDouble(frame[i]);
+                }
+            }
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package awg.simulation.software;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/// Renders every channel of a multi-channel setup concurrently, one task per channel. All channels run on the
+/// first channel's sample clock (sampling rate and record length), so sample i of every channel is the same
+/// instant. The phase relation is fixed by the settings alone: with syncChannels on the first channel all
+/// channels start at its phase; otherwise each starts at its own phase plus its phaseOffset.
+public class MultiChannelEngine {
+    public static final int CHANNELS = 4;
+
+    private final ForkJoinPool pool;
+
+    public MultiChannelEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public MultiChannelEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /// Each channel gets its own reproducible random stream derived from seed, so the result does not
+    /// depend on which thread renders which channel
+    public MultiChannelBuffer render(WaveformSnapshot[] channels, long seed) {
+        if (channels.length == 0) {
+            throw new IllegalArgumentException("At least one channel is required");
+        }
+        WaveformSnapshot reference = channels[0];
+        SampleBuffer[] outputs = new SampleBuffer[channels.length];
+        ChannelTask[] tasks = new ChannelTask[channels.length];
+        /// Interrupting the calling thread (a superseded render) stops every channel at its next block
+        AtomicBoolean cancelled = new AtomicBoolean();
+        for (int c = 0; c < channels.length; c++) {
+            WaveformSnapshot channel = onSharedClock(channels[c], reference);
+            outputs[c] = SamplePrecision.fromLabel(channel.samplePrecision()).allocate(channel.samples());
+            tasks[c] = new ChannelTask(channel, seed, c, outputs[c], cancelled);
+        }
+        WaveformRenderService.runOnPool(pool, new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        }, cancelled);
+        return new MultiChannelBuffer(outputs, reference.samplingRate());
+    }
+
+    /// The channel's settings retimed to the reference clock, with the start phase locked when synchronized
+    static WaveformSnapshot onSharedClock(WaveformSnapshot channel, WaveformSnapshot reference) {
+        WaveformSnapshot.Builder builder = channel.toBuilder()
+                .samplingRate(reference.samplingRate())
+                .samples(reference.samples());
+        if (reference.syncChannels()) {
+            builder.phase(reference.phase()).syncChannels(true);
+        }
+        return builder.build();
+    }
+
+    private static class ChannelTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        /// Tasks never leave the pool, so the settings and output are not part of the serial form
+        private final transient WaveformSnapshot channel;
+        private final long seed;
+        private final int index;
+        private final transient SampleBuffer output;
+        private final AtomicBoolean cancelled;
+
+        ChannelTask(WaveformSnapshot channel, long seed, int index, SampleBuffer output, AtomicBoolean cancelled) {
+            this.channel = channel;
+            this.seed = seed;
+            this.index = index;
+            this.output = output;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected void compute() {
+            WaveformRenderService.runAsPartOf(cancelled,
+                    () -> SignalChain.render(channel, ParallelWaveformGenerator.chunkRandom(seed, index), output));
+        }
+    }
+}
\ No newline at end of file
@@ -3,52 +3,164 @@ package awg.simulation.software;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
 
 public class NoiseGenerator {
-    private List<double[]> customNoisePoints = new ArrayList<>();
-    private Random random = new Random();
+    private CustomWaveform customNoise = new CustomWaveform();
+    /// (log10 frequency, dBc/Hz) profile of the Spectral noise type, kept apart from the time-domain points
+    private CustomWaveform spectralProfile = new CustomWaveform();
+    private RandomGenerator random = RandomSource.create();
     private WaveformData waveformData;
+    /// Filter state of the colored and spectral noise streams, carried between consecutive blocks
+    private ColoredNoise colored;
+    private SpectralNoise spectral;
+    private long spectralRevision = -1;
+    private double spectralRate;
+    private String streamType;
+    private long nextStreamIndex;
+
+    public NoiseGenerator() {
+    }
+
+    NoiseGenerator(CustomWaveform customNoise, CustomWaveform spectralProfile, WaveformData waveformData, RandomGenerator random) {
+        this.customNoise = customNoise;
+        this.spectralProfile = spectralProfile;
+        this.waveformData = waveformData;
+        this.random = random;
+    }
+
+    /// Reentrant entry point: noise of the snapshot's type and amplitude for samples startSampleIndex onward,
+    /// drawn from the caller's random stream
+    public static void generate(WaveformSnapshot snapshot, RandomGenerator random, double[] noise, int length, long startSampleIndex) {
+        new NoiseGenerator(snapshot.customNoise(), snapshot.spectralProfile(), snapshot.toData(), random)
+                .generateNoise(snapshot.noiseType(), snapshot.noiseAmplitude(), noise, length, startSampleIndex);
+    }
 
     public void setWaveformData(WaveformData waveformData) {
         this.waveformData = waveformData;
     }
 
+    public void setRandom(RandomGenerator random) {
+        this.random = random;
+    }
+
+    public CustomWaveform getCustomNoise() {
+        return customNoise;
+    }
+
+    public CustomWaveform getSpectralProfile() {
+        return spectralProfile;
+    }
+
     public double[] generateNoise(String noiseType, double amplitude, int samples) {
         double[] noise = new double[samples];
+        generateNoise(noiseType, amplitude, noise, samples, 0);
+        return noise;
+    }
+
+    /// Block form: fills noise[0, length) for samples startSampleIndex onward (zeros when noise is off)
+    public void generateNoise(String noiseType, double amplitude, double[] noise, int length, long startSampleIndex) {
         if (noiseType == null || noiseType.equals("None") || amplitude <= 0) {
-            return noise;
+            Arrays.fill(noise, 0, length, 0);
+            return;
         }
 
         switch (noiseType) {
             case "White":
-                for (int i = 0; i < samples; i++) {
-                    noise[i] = amplitude * (2 * random.nextDouble() - 1);
-                }
+                RandomSource.fillUniform(random, noise, 0, length, -amplitude, amplitude);
                 break;
             case "Gaussian":
-                for (int i = 0; i < samples; i++) {
-                    noise[i] = amplitude * random.nextGaussian();
+                RandomSource.fillGaussian(random, noise, 0, length, 0, amplitude);
+                break;
+            case "Pink":
+            case "Brown":
+            case "Blue":
+            case "Violet":
+                if (!continuesStream(noiseType, startSampleIndex)) {
+                    colored = new ColoredNoise(noiseType);
+                    colored.reset(random);
+                }
+                colored.fill(random, noise, 0, length, amplitude);
+                nextStreamIndex = startSampleIndex + length;
+                break;
+            case "Spectral":
+                if (spectralProfile.isEmpty()) {
+                    Arrays.fill(noise, 0, length, 0);
+                    break;
+                }
+                double samplingRate = waveformData.getSamplingRate();
+                if (spectral == null || spectralRevision != spectralProfile.getRevision() || spectralRate != samplingRate) {
+                    spectral = new SpectralNoise(spectralProfile, samplingRate);
+                    spectralRevision = spectralProfile.getRevision();
+                    spectralRate = samplingRate;
+                    streamType = null;
+                }
+                if (!continuesStream(noiseType, startSampleIndex)) {
+                    spectral.reset(random);
                 }
+                spectral.fill(random, noise, 0, length, amplitude);
+                nextStreamIndex = startSampleIndex + length;
                 break;
             case "Custom":
-                if (!customNoisePoints.isEmpty()) {
+                if (!customNoise.isEmpty()) {
                     double duration = waveformData.getDuration();
-                    for (int i = 0; i < samples; i++) {
-                        double t = (double) i / waveformData.getSamplingRate();
+                    CustomWaveform.Cursor cursor = customNoise.cursor();
+                    for (int i = 0; i < length; i++) {
+                        double t = (double) (startSampleIndex + i) / waveformData.getSamplingRate();
                         double normalizedT = t / duration;
-                        noise[i] = amplitude * evaluateCustomNoise(normalizedT);
+                        noise[i] = amplitude * cursor.valueAt(normalizedT);
                     }
+                } else {
+                    Arrays.fill(noise, 0, length, 0);
                 }
                 break;
+            default:
+                Arrays.fill(noise, 0, length, 0);
         }
-        return noise;
+    }
+
+    /// A new record, another noise type or a jump in the sample index starts a fresh stream
+    private boolean continuesStream(String noiseType, long startSampleIndex) {
+        boolean continues = noiseType.equals(streamType) && startSampleIndex == nextStreamIndex;
+        streamType = noiseType;
+        return continues;
+    }
+
+    /// Reads "frequency,dBc/Hz" rows into a new spectral profile for the Spectral noise type. Frequencies are
+    /// stored as log10 so the profile interpolates in dB over log frequency. The current profile is only
+    /// replaced once the whole file has parsed.
+    public void importNoisePsdCsv(File file) {
+        CustomWaveform imported = new CustomWaveform();
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] values = line.split(",");
+                if (values.length != 2) {
+                    throw new IllegalArgumentException("PSD CSV must have exactly two columns (frequency, dBc/Hz)");
+                }
+                try {
+                    double frequency = Double.parseDouble(values[0].trim());
+                    double level = Double.parseDouble(values[1].trim());
+                    if (frequency <= 0) {
+                        throw new IllegalArgumentException("Frequencies must be positive");
+                    }
+                    imported.add(Math.log10(frequency), level);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid number format in PSD line: " + line);
+                }
+            }
+            if (imported.isEmpty()) {
+                throw new IllegalArgumentException("PSD CSV has no points");
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to import PSD: " + e.getMessage(), e);
+        }
+        spectralProfile = imported;
     }
 
     public void importNoiseCsv(File file) {
-        customNoisePoints.clear();
+        customNoise.clear();
         try (BufferedReader br = new BufferedReader(new FileReader(file))) {
             String line;
             while ((line = br.readLine()) != null) {
@@ -57,7 +169,7 @@ public class NoiseGenerator {
                     try {
                         double time = Double.parseDouble(values[0]);
                         double amplitude = Double.parseDouble(values[1]);
-                        customNoisePoints.add(new double[]{time, amplitude});
+                        customNoise.add(time, amplitude);
                     } catch (NumberFormatException e) {
                         System.err.println("Skipping invalid CSV line: " + line);
                     }
@@ -67,18 +179,4 @@ public class NoiseGenerator {
             e.printStackTrace();
         }
     }
-
-    private double evaluateCustomNoise(double t) {
-        if (customNoisePoints.isEmpty()) {
-            return 0;
-        }
-        for (int i = 0; i < customNoisePoints.size() - 1; i++) {
-            double t1 = customNoisePoints.get(i)[0], v1 = customNoisePoints.get(i)[1];
-            double t2 = customNoisePoints.get(i + 1)[0], v2 = customNoisePoints.get(i + 1)[1];
-            if (t >= t1 && t <= t2) {
-                return v1 + (v2 - v1) * (t - t1) / (t2 - t1);
-            }
-        }
-        return customNoisePoints.get(customNoisePoints.size() - 1)[1];
-    }
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package awg.simulation.software;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.random.RandomGenerator;
+
+public class ParallelWaveformGenerator {
+    /// Chunks sit on a fixed absolute grid, so the output never depends on how many threads run them
+    public static final int CHUNK_SIZE = 1 << 16;
+    /// Stream of the record's phase-noise-mask process, apart from the chunk streams (indexes from 0)
+    private static final long MASK_STREAM = -1;
+
+    private final ForkJoinPool pool;
+
+    public ParallelWaveformGenerator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelWaveformGenerator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public double[] generateWaveform(WaveformGenerator template, String type, WaveformData data) {
+        double[] waveform = new double[data.getSamples()];
+        generateInto(template, type, data, waveform, 0, waveform.length, 0);
+        return waveform;
+    }
+
+    public void generateInto(WaveformGenerator template, String type, WaveformData data,
+                             double[] buffer, int offset, int length, long startSampleIndex) {
+        long seed = data.isFixedSeed() ? data.getSeed() : RandomSource.randomSeed();
+        /// The mask's phase process has a long memory, so it is rendered once for the whole range and every
+        /// chunk reads its slice: one realization, and the filter is designed once instead of per chunk
+        PhaseNoiseMask mask = PhaseNoiseMask.isActive(data.getPhaseNoiseMask())
+                ? PhaseNoiseMask.rendered(data.getPhaseNoiseMask(), data.getSamplingRate(),
+                        RandomSource.forStream(seed, MASK_STREAM), startSampleIndex, length)
+                : null;
+        /// Interrupting the calling thread (a superseded render) stops the remaining chunks
+        AtomicBoolean cancelled = new AtomicBoolean();
+        WaveformRenderService.runOnPool(pool, new ChunkTask(template, type, data, seed, mask, cancelled,
+                buffer, offset, startSampleIndex, startSampleIndex + length), cancelled);
+    }
+
+    /// Independent, reproducible random stream for one chunk of the absolute sample grid
+    static RandomGenerator chunkRandom(long seed, long chunkIndex) {
+        return RandomSource.forStream(seed, chunkIndex);
+    }
+
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        /// Tasks never leave the pool, so the generator and settings are not part of the serial form
+        private final transient WaveformGenerator template;
+        private final String type;
+        private final transient WaveformData data;
+        private final long seed;
+        private final transient PhaseNoiseMask mask;
+        private final AtomicBoolean cancelled;
+        private final double[] buffer;
+        private final int bufferOffset;
+        private final long from;
+        private final long to;
+
+        ChunkTask(WaveformGenerator template, String type, WaveformData data, long seed, PhaseNoiseMask mask,
+                  AtomicBoolean cancelled, double[] buffer, int bufferOffset, long from, long to) {
+            this.template = template;
+            this.type = type;
+            this.data = data;
+            this.seed = seed;
+            this.mask = mask;
+            this.cancelled = cancelled;
+            this.buffer = buffer;
+            this.bufferOffset = bufferOffset;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to <= from) {
+                return;
+            }
+            long firstChunk = from / CHUNK_SIZE;
+            long lastChunk = (to - 1) / CHUNK_SIZE;
+            if (firstChunk == lastChunk) {
+                WaveformRenderService.runAsPartOf(cancelled, () -> {
+                    WaveformRenderService.checkCancelled();
+                    WaveformGenerator worker = new WaveformGenerator(template, chunkRandom(seed, firstChunk), mask);
+                    worker.generateInto(type, data, buffer, bufferOffset, (int) (to - from), from);
+                });
+                return;
+            }
+            long split = (firstChunk + (lastChunk - firstChunk + 1) / 2) * CHUNK_SIZE;
+            invokeAll(new ChunkTask(template, type, data, seed, mask, cancelled, buffer, bufferOffset, from, split),
+                    new ChunkTask(template, type, data, seed, mask, cancelled, buffer, bufferOffset + (int) (split - from), split, to));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package awg.simulation.software;
+
+/// Detects strictly periodic configurations so a record can be built from one synthesized period plus bulk
+/// copies. The period is the smallest sample count holding a whole number of cycles of the carrier (and of the
+/// harmonic, if mixed in), found from the continued fraction of frequency / sampling rate.
+public final class Periodicity {
+    /// Largest phase slip, in cycles accumulated over the whole tiled record, accepted as periodic
+    /// (far below one LSB at 16 bits)
+    private static final double TOLERANCE = 1e-9;
+
+    private Periodicity() {
+    }
+
+    /// Period of the oscillator output in samples, or 0 if a length-sample record has no period of at most
+    /// half its length. Jitter, phase noise and sweeps make the carrier aperiodic; custom shapes span the
+    /// record once.
+    public static int oscillatorPeriod(String type, WaveformData data, int length) {
+        if (type.equals("Custom") || data.getJitterAmount() > 0 || data.getPhaseNoise() > 0
+                || PhaseNoiseMask.isActive(data.getPhaseNoiseMask())
+                || (data.isFrequencySweep() && data.getSweepDuration() > 0)) {
+            return 0;
+        }
+        int limit = length / 2;
+        double samplingRate = data.getSamplingRate();
+        long period = samplesPerCycles(data.getFrequency() / samplingRate, limit, length);
+        if (period > 0 && data.getHarmonic1Amp() > 0) {
+            long harmonicPeriod = samplesPerCycles(data.getHarmonic1Freq() * data.getFrequency() / samplingRate, limit, length);
+            period = harmonicPeriod > 0 ? lcm(period, harmonicPeriod) : 0;
+        }
+        return period > 0 && period <= limit ? (int) period : 0;
+    }
+
+    /// As oscillatorPeriod, but for the finished record: drift, bursts and quantization noise also break it
+    public static int recordPeriod(String type, WaveformData data, int length) {
+        if (data.getDriftRate() != 0 || (data.isBurstMode() && data.getBurstPeriod() > 0) || data.isQuantizationNoise()) {
+            return 0;
+        }
+        return oscillatorPeriod(type, data, length);
+    }
+
+    /// Repeats buffer[offset, offset + period) until buffer[offset, offset + length) is full
+    public static void tile(double[] buffer, int offset, int period, int length) {
+        for (int filled = period; filled < length; ) {
+            int count = Math.min(filled, length - filled);
+            System.arraycopy(buffer, offset, buffer, offset + filled, count);
+            filled += count;
+        }
+    }
+
+    /// Smallest k <= limit whose slip from a whole number of cycles, repeated over length samples, stays
+    /// within TOLERANCE, or 0
+    private static long samplesPerCycles(double cyclesPerSample, long limit, long length) {
+        if (!(cyclesPerSample >= 0) || Double.isInfinite(cyclesPerSample)) {
+            return 0;
+        }
+        double x = cyclesPerSample;
+        long h1 = 1, h2 = 0;
+        long k1 = 0, k2 = 1;
+        while (true) {
+            double a = Math.floor(x);
+            if (a * k1 + k2 > limit) {
+                return 0;
+            }
+            long h = (long) a * h1 + h2;
+            long k = (long) a * k1 + k2;
+            if (Math.abs(cyclesPerSample * k - h) * Math.ceil((double) length / k) <= TOLERANCE) {
+                return k;
+            }
+            double fraction = x - a;
+            if (fraction == 0) {
+                return 0;
+            }
+            x = 1 / fraction;
+            h2 = h1;
+            h1 = h;
+            k2 = k1;
+            k1 = k;
+        }
+    }
+
+    private static long lcm(long a, long b) {
+        long x = a, y = b;
+        while (y != 0) {
+            long t = x % y;
+            x = y;
+            y = t;
+        }
+        return a / x * b;
+    }
+}
\ No newline at end of file
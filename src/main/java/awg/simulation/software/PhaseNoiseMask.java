@@ -0,0 +1,98 @@
+package awg.simulation.software;
+
+import java.util.random.RandomGenerator;
+
+/// Oscillator phase noise following a single-sideband offset mask L(f), written as "offset Hz:dBc/Hz" pairs
+/// such as "1e3:-80, 1e6:-120". The mask is interpolated in dB over log offset and held flat beyond its end
+/// points. The phase process has the one-sided density S_phi(f) = 2 L(f) rad^2/Hz and comes from
+/// SpectralNoise, so it is filtered a frame at a time and each block only copies out its share. The process
+/// carries over between consecutive blocks; any other start index begins a new one.
+/// A rendered mask holds one realization for a whole record instead, so parallel chunks can read their slices
+/// of the same process.
+public class PhaseNoiseMask {
+    private final String mask;
+    private final double samplingRate;
+    private final SpectralNoise process;
+    private long nextSampleIndex = -1;
+    /// Rendered masks only: phase offsets of samples recordStart onward; read-only, so threads may share it
+    private final double[] record;
+    private final long recordStart;
+
+    public PhaseNoiseMask(String mask, double samplingRate) {
+        this.mask = mask;
+        this.samplingRate = samplingRate;
+        this.process = new SpectralNoise(parse(mask), samplingRate);
+        this.record = null;
+        this.recordStart = 0;
+    }
+
+    private PhaseNoiseMask(String mask, double samplingRate, double[] record, long recordStart) {
+        this.mask = mask;
+        this.samplingRate = samplingRate;
+        this.process = null;
+        this.record = record;
+        this.recordStart = recordStart;
+    }
+
+    /// The process for samples startSampleIndex to startSampleIndex + length, generated up front in one pass
+    /// from random. fill then copies out slices and ignores its random argument.
+    public static PhaseNoiseMask rendered(String mask, double samplingRate, RandomGenerator random,
+                                          long startSampleIndex, int length) {
+        double[] record = new double[length];
+        new PhaseNoiseMask(mask, samplingRate).fill(random, record, 0, length, startSampleIndex);
+        return new PhaseNoiseMask(mask, samplingRate, record, startSampleIndex);
+    }
+
+    public static boolean isActive(String mask) {
+        return mask != null && !mask.isBlank();
+    }
+
+    /// Mask points as (log10 offset, dBc/Hz); throws IllegalArgumentException for malformed or
+    /// non-positive offsets
+    public static CustomWaveform parse(String mask) {
+        CustomWaveform points = new CustomWaveform();
+        for (String point : mask.split("[,;]")) {
+            if (point.isBlank()) {
+                continue;
+            }
+            String[] values = point.split(":");
+            try {
+                double offset = Double.parseDouble(values[0].trim());
+                double level = Double.parseDouble(values[1].trim());
+                if (values.length == 2 && offset > 0) {
+                    points.add(Math.log10(offset), level);
+                    continue;
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                /// Reported below with the offending point
+            }
+            throw new IllegalArgumentException("Invalid phase noise mask point: " + point.trim());
+        }
+        if (points.isEmpty()) {
+            throw new IllegalArgumentException("Phase noise mask has no points");
+        }
+        return points.frozenCopy();
+    }
+
+    public boolean matches(String mask, double samplingRate) {
+        return this.mask.equals(mask) && this.samplingRate == samplingRate;
+    }
+
+    /// Phase offsets in radians for samples startSampleIndex onward into radians[offset, offset + length)
+    public void fill(RandomGenerator random, double[] radians, int offset, int length, long startSampleIndex) {
+        if (record != null) {
+            long from = startSampleIndex - recordStart;
+            if (from < 0 || from + length > record.length) {
+                throw new IllegalArgumentException("Samples outside the rendered phase noise record: " + startSampleIndex);
+            }
+            System.arraycopy(record, (int) from, radians, offset, length);
+            return;
+        }
+        if (startSampleIndex != nextSampleIndex) {
+            process.reset(random);
+        }
+        /// SpectralNoise gives amplitude^2 / 2 * 10^(L / 10); amplitude 2 makes that 2 L(f)
+        process.fill(random, radians, offset, length, 2);
+        nextSampleIndex = startSampleIndex + length;
+    }
+}
\ No newline at end of file
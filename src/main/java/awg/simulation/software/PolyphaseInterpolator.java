@@ -0,0 +1,103 @@
+package awg.simulation.software;
+
+import java.util.Arrays;
+
+/// Interpolating FIR filter split into factor polyphase branches. Only the symbol-rate inputs are stored, so
+/// each output sample costs taps / factor multiply-adds instead of running the zero-stuffed input through
+/// the whole filter. Blocks are filtered branch by branch and tap by tap, so the innermost loop runs over
+/// the whole block with independent sums and the JIT can vectorize it.
+public class PolyphaseInterpolator {
+    private final int factor;
+    private final int tapsPerPhase;
+    /// Tap j of branch p is filter tap j * factor + p
+    private final double[] branches;
+    /// Last tapsPerPhase - 1 inputs of the previous block, oldest first, followed by the current block
+    private double[] window;
+    private double[] branchOutput;
+
+    public PolyphaseInterpolator(double[] taps, int factor) {
+        if (factor < 1) {
+            throw new IllegalArgumentException("Interpolation factor must be at least 1");
+        }
+        this.factor = factor;
+        this.tapsPerPhase = (taps.length + factor - 1) / factor;
+        this.branches = new double[factor * tapsPerPhase];
+        System.arraycopy(taps, 0, branches, 0, taps.length);
+        this.window = new double[tapsPerPhase - 1];
+        this.branchOutput = new double[0];
+    }
+
+    public int getFactor() {
+        return factor;
+    }
+
+    /// Filters input[inOffset, inOffset + count) into output[outOffset, outOffset + count * factor).
+    /// The filter state carries over, so consecutive blocks form one continuous stream.
+    public void interpolate(double[] input, int inOffset, int count, double[] output, int outOffset) {
+        int history = tapsPerPhase - 1;
+        if (window.length < history + count) {
+            double[] grown = new double[history + count];
+            System.arraycopy(window, 0, grown, 0, history);
+            window = grown;
+            branchOutput = new double[count];
+        }
+        System.arraycopy(input, inOffset, window, history, count);
+        for (int p = 0; p < factor; p++) {
+            Arrays.fill(branchOutput, 0, count, 0);
+            for (int j = 0; j < tapsPerPhase; j++) {
+                double tap = branches[j * factor + p];
+                int from = history - j;
+                for (int s = 0; s < count; s++) {
+                    branchOutput[s] += tap * window[from + s];
+                }
+            }
+            for (int s = 0, o = outOffset + p; s < count; s++, o += factor) {
+                output[o] = branchOutput[s];
+            }
+        }
+        System.arraycopy(window, count, window, 0, history);
+    }
+
+    /// Largest output magnitude per unit input magnitude, over all branches
+    public double peakGain() {
+        double peak = 0;
+        for (int p = 0; p < factor; p++) {
+            double gain = 0;
+            for (int j = 0; j < tapsPerPhase; j++) {
+                gain += Math.abs(branches[j * factor + p]);
+            }
+            peak = Math.max(peak, gain);
+        }
+        return peak;
+    }
+
+    /// Root-raised-cosine taps spanning span symbols at samplesPerSymbol, normalized to unit energy per
+    /// symbol so the shaped signal keeps the constellation's average power
+    public static double[] rootRaisedCosine(double rolloff, int span, int samplesPerSymbol) {
+        if (rolloff <= 0 || rolloff > 1) {
+            throw new IllegalArgumentException("Roll-off must be in (0, 1]");
+        }
+        double[] taps = new double[span * samplesPerSymbol + 1];
+        double energy = 0;
+        for (int k = 0; k < taps.length; k++) {
+            double t = (double) (k - taps.length / 2) / samplesPerSymbol;
+            double value;
+            if (t == 0) {
+                value = 1 - rolloff + 4 * rolloff / Math.PI;
+            } else if (Math.abs(Math.abs(t) - 1 / (4 * rolloff)) < 1e-12) {
+                value = rolloff / Math.sqrt(2) * ((1 + 2 / Math.PI) * Math.sin(Math.PI / (4 * rolloff))
+                        + (1 - 2 / Math.PI) * Math.cos(Math.PI / (4 * rolloff)));
+            } else {
+                value = (Math.sin(Math.PI * t * (1 - rolloff)) + 4 * rolloff * t * Math.cos(Math.PI * t * (1 + rolloff)))
+                        / (Math.PI * t * (1 - 16 * rolloff * rolloff * t * t));
+            }
+            taps[k] = value;
+            energy += value * value;
+        }
+        double scale = Math.sqrt(samplesPerSymbol / energy);
+        for (int k = 0; k < taps.length; k++) {
+            taps[k] *= scale;
+        }
+        return taps;
+    }
+}
\ No newline at end of file
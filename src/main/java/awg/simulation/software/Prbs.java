@@ -0,0 +1,50 @@
+package awg.simulation.software;
+
+/// Pseudo-random binary sequence from a Fibonacci LFSR with the ITU-T O.150 polynomials
+/// (PRBS7, 9, 11, 15, 20, 23, 31). The register starts at all ones, so every run yields the same sequence.
+public class Prbs implements BitSource {
+    private final int order;
+    private final int tap;
+    private final long mask;
+    private long state;
+
+    public Prbs(int order) {
+        switch (order) {
+            case 7: tap = 6; break;
+            case 9: tap = 5; break;
+            case 11: tap = 9; break;
+            case 15: tap = 14; break;
+            case 20: tap = 3; break;
+            case 23: tap = 18; break;
+            case 31: tap = 28; break;
+            default: throw new IllegalArgumentException("Unsupported PRBS order: " + order);
+        }
+        this.order = order;
+        this.mask = (1L << order) - 1;
+        this.state = mask;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    /// Sequence length before it repeats
+    public long getPeriod() {
+        return mask;
+    }
+
+    public int nextBit() {
+        int bit = (int) (((state >>> (order - 1)) ^ (state >>> (tap - 1))) & 1);
+        state = ((state << 1) | bit) & mask;
+        return bit;
+    }
+
+    @Override
+    public int nextBits(int count) {
+        int bits = 0;
+        for (int i = 0; i < count; i++) {
+            bits = (bits << 1) | nextBit();
+        }
+        return bits;
+    }
+}
\ No newline at end of file
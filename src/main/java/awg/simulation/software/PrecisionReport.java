@@ -0,0 +1,70 @@
+package awg.simulation.software;
+
+/// Error of a reduced-precision record against the float64 reference
+public class PrecisionReport {
+    private final SamplePrecision precision;
+    private final double maxAbsError;
+    private final double rmsError;
+    private final double snrDb;
+    private final long bytes;
+    private final long referenceBytes;
+
+    private PrecisionReport(SamplePrecision precision, double maxAbsError, double rmsError, double snrDb, long bytes, long referenceBytes) {
+        this.precision = precision;
+        this.maxAbsError = maxAbsError;
+        this.rmsError = rmsError;
+        this.snrDb = snrDb;
+        this.bytes = bytes;
+        this.referenceBytes = referenceBytes;
+    }
+
+    public static PrecisionReport compare(SampleBuffer reference, SampleBuffer candidate) {
+        if (reference.length() != candidate.length()) {
+            throw new IllegalArgumentException("Records differ in length");
+        }
+        double[] expected = new double[SignalChain.BLOCK_SIZE];
+        double[] actual = new double[SignalChain.BLOCK_SIZE];
+        double maxError = 0, errorPower = 0, signalPower = 0;
+        long length = reference.length();
+        for (long start = 0; start < length; start += SignalChain.BLOCK_SIZE) {
+            int count = (int) Math.min(SignalChain.BLOCK_SIZE, length - start);
+            reference.read(start, expected, 0, count);
+            candidate.read(start, actual, 0, count);
+            for (int i = 0; i < count; i++) {
+                double error = actual[i] - expected[i];
+                maxError = Math.max(maxError, Math.abs(error));
+                errorPower += error * error;
+                signalPower += expected[i] * expected[i];
+            }
+        }
+        double rms = length > 0 ? Math.sqrt(errorPower / length) : 0;
+        double snr = errorPower > 0 ? 10 * Math.log10(signalPower / errorPower) : Double.POSITIVE_INFINITY;
+        return new PrecisionReport(candidate.precision(), maxError, rms, snr, candidate.sizeInBytes(), reference.sizeInBytes());
+    }
+
+    public SamplePrecision getPrecision() {
+        return precision;
+    }
+
+    public double getMaxAbsError() {
+        return maxAbsError;
+    }
+
+    public double getRmsError() {
+        return rmsError;
+    }
+
+    public double getSnrDb() {
+        return snrDb;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: max |error| %.3e, rms %.3e, SNR %.1f dB, %d of %d bytes (%.0f%%)",
+                precision.getLabel(), maxAbsError, rmsError, snrDb, bytes, referenceBytes, 100.0 * bytes / referenceBytes);
+    }
+}
\ No newline at end of file
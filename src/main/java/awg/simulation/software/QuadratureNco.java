@@ -0,0 +1,102 @@
+package awg.simulation.software;
+
+/// Numerically controlled oscillator for carriers. The cos/sin pair advances by a complex rotation (four
+/// multiplies and two adds per sample) and the phase in cycles by one add, so no trig runs per sample.
+/// Every RESEED_INTERVAL absolute samples both are reset from the exact phase, which bounds the rotation's
+/// amplitude and phase error and makes the output a function of the sample index alone: any block split,
+/// or a seek, yields the same samples as one sequential pass.
+/// Carriers whose frequency changes every sample (FSK) use the frequency-step mode instead: a DDS phase word
+/// advanced by a per-sample step and read through the DDS sine table.
+public class QuadratureNco {
+    /// Power of two; the rotation drifts by roughly RESEED_INTERVAL ulps at most before a reset
+    static final int RESEED_INTERVAL = 1024;
+
+    private final double step;
+    private final double cosStep;
+    private final double sinStep;
+    private long index;
+    private double cos;
+    private double sin;
+    private double cycles;
+    /// Frequency-step mode phase in DdsOscillator accumulator units, independent of the rotation above
+    private long phaseWord;
+
+    public QuadratureNco(double frequency, double samplingRate) {
+        this.step = frequency / samplingRate;
+        this.cosStep = Math.cos(2 * Math.PI * step);
+        this.sinStep = Math.sin(2 * Math.PI * step);
+        reseed(0);
+    }
+
+    /// Positions the oscillator on an absolute sample index
+    public void seek(long sampleIndex) {
+        reseed(sampleIndex - Math.floorMod(sampleIndex, RESEED_INTERVAL));
+        while (index < sampleIndex) {
+            advance();
+        }
+    }
+
+    public long getSampleIndex() {
+        return index;
+    }
+
+    /// cos(2 * PI * frequency * t) at the current sample
+    public double cos() {
+        return cos;
+    }
+
+    /// sin(2 * PI * frequency * t) at the current sample
+    public double sin() {
+        return sin;
+    }
+
+    /// Carrier phase at the current sample in cycles, wrapped to [0, 1). Angles built on it stay small, so
+    /// Math.sin takes its fast path however long the record is.
+    public double cycles() {
+        return cycles;
+    }
+
+    public void advance() {
+        index++;
+        if ((index & (RESEED_INTERVAL - 1)) == 0) {
+            reseed(index);
+            return;
+        }
+        double nextCos = cos * cosStep - sin * sinStep;
+        sin = sin * cosStep + cos * sinStep;
+        cos = nextCos;
+        cycles += step;
+        if (cycles >= 1 || cycles < 0) {
+            cycles -= Math.floor(cycles);
+        }
+    }
+
+    /// Frequency-step mode: sin of the accumulated phase, after which the phase advances by cyclesPerSample.
+    /// An integer word never loses precision however long the record, and the table lookup replaces Math.sin.
+    public double stepSine(double cyclesPerSample) {
+        double value = DdsOscillator.lookup(phaseWord);
+        phaseWord = (phaseWord + Math.round(cyclesPerSample * DdsOscillator.ACCUMULATOR_SCALE)) & DdsOscillator.ACCUMULATOR_MASK;
+        return value;
+    }
+
+    /// Block form for I/Q stages and kernels: fills either array (or both) and advances length samples
+    public void quadrature(double[] cosOut, double[] sinOut, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (cosOut != null) {
+                cosOut[offset + i] = cos;
+            }
+            if (sinOut != null) {
+                sinOut[offset + i] = sin;
+            }
+            advance();
+        }
+    }
+
+    private void reseed(long sampleIndex) {
+        double phase = sampleIndex * step;
+        index = sampleIndex;
+        cycles = phase - Math.floor(phase);
+        cos = Math.cos(2 * Math.PI * cycles);
+        sin = Math.sin(2 * Math.PI * cycles);
+    }
+}
\ No newline at end of file
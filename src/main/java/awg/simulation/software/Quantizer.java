@@ -0,0 +1,64 @@
+package awg.simulation.software;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.random.RandomGenerator;
+
+/// Vertical quantizer for one resolution, built once instead of parsing the resolution per sample.
+/// Level k sits at k * step with step = 2 / (2^bits - 1) and the output is clipped to [-1, 1].
+public final class Quantizer {
+    public static final int MIN_BITS = 1;
+    public static final int MAX_BITS = 16;
+    private static final Map<String, Quantizer> BY_RESOLUTION = new ConcurrentHashMap<>();
+
+    private final int bits;
+    private final double step;
+
+    private Quantizer(int bits) {
+        if (bits < MIN_BITS || bits > MAX_BITS) {
+            throw new IllegalArgumentException("Resolution must be between " + MIN_BITS + " and " + MAX_BITS + " bits");
+        }
+        this.bits = bits;
+        this.step = 2.0 / ((1 << bits) - 1);
+    }
+
+    public static Quantizer of(int bits) {
+        return new Quantizer(bits);
+    }
+
+    /// Parses resolutions such as "12-bit"; instances are cached per string
+    public static Quantizer forResolution(String resolution) {
+        return BY_RESOLUTION.computeIfAbsent(resolution, r -> of(Integer.parseInt(r.split("-")[0])));
+    }
+
+    public double quantize(double value) {
+        return Math.max(-1, Math.min(1, Math.round(value / step) * step));
+    }
+
+    public void quantize(double[] samples, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            samples[i] = Math.max(-1, Math.min(1, Math.round(samples[i] / step) * step));
+        }
+    }
+
+    /// Legacy quantization noise: +-10% of a step added after rounding, only below 14 bits
+    public void quantize(double[] samples, int offset, int length, RandomGenerator noise) {
+        if (bits >= 14) {
+            quantize(samples, offset, length);
+            return;
+        }
+        double noiseAmplitude = step * 0.1;
+        for (int i = offset; i < offset + length; i++) {
+            double quantized = Math.round(samples[i] / step) * step + noiseAmplitude * (2 * noise.nextDouble() - 1);
+            samples[i] = Math.max(-1, Math.min(1, quantized));
+        }
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    public double getStep() {
+        return step;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package awg.simulation.software;
+
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/// Random streams for generation and noise. Generators come from RandomGeneratorFactory by algorithm name
+/// (L64X128MixRandom unless told otherwise): unsynchronized, seedable, and cheap enough to create one per
+/// chunk or channel. Parallel work never shares a generator; each piece derives its own stream from the
+/// record seed and its index instead.
+public final class RandomSource {
+    public static final String DEFAULT_ALGORITHM = "L64X128MixRandom";
+    private static final RandomGeneratorFactory<RandomGenerator> DEFAULT_FACTORY = RandomGeneratorFactory.of(DEFAULT_ALGORITHM);
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private RandomSource() {
+    }
+
+    /// Unseeded stream for records that need not be reproducible
+    public static RandomGenerator create() {
+        return DEFAULT_FACTORY.create();
+    }
+
+    public static RandomGenerator create(long seed) {
+        return DEFAULT_FACTORY.create(seed);
+    }
+
+    /// Throws IllegalArgumentException for algorithms the runtime does not provide
+    public static RandomGenerator create(String algorithm, long seed) {
+        return algorithm.equals(DEFAULT_ALGORITHM) ? create(seed) : RandomGeneratorFactory.of(algorithm).create(seed);
+    }
+
+    /// Fresh seed for a record whose settings do not fix one
+    public static long randomSeed() {
+        return create().nextLong();
+    }
+
+    /// Stream number index of the record seeded with seed (chunk, channel, stage...). Every index gets a
+    /// well-mixed seed of its own, so streams are independent and the result does not depend on which
+    /// thread draws from which stream, or in what order.
+    public static RandomGenerator forStream(long seed, long index) {
+        return create(mix64(seed + (index + 1) * GOLDEN_GAMMA));
+    }
+
+    /// Child stream seeded from the parent's next draw; the parent advances by exactly one value
+    public static RandomGenerator split(RandomGenerator parent) {
+        return create(parent.nextLong());
+    }
+
+    public static void fillUniform(RandomGenerator random, double[] out) {
+        fillUniform(random, out, 0, out.length, -1, 1);
+    }
+
+    /// Uniform values in [origin, bound) from the top 53 bits of each draw
+    public static void fillUniform(RandomGenerator random, double[] out, int offset, int length, double origin, double bound) {
+        double scale = (bound - origin) * 0x1.0p-53;
+        for (int i = offset; i < offset + length; i++) {
+            out[i] = origin + (random.nextLong() >>> 11) * scale;
+        }
+    }
+
+    public static void fillGaussian(RandomGenerator random, double[] out) {
+        fillGaussian(random, out, 0, out.length, 0, 1);
+    }
+
+    /// Normal values from the ziggurat sampler
+    public static void fillGaussian(RandomGenerator random, double[] out, int offset, int length, double mean, double stddev) {
+        Ziggurat.fill(random, out, offset, length, mean, stddev);
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,17 @@
+package awg.simulation.software;
+
+/// Record-level stages of IncrementalRenderer. Each WaveformData setter bumps the revision of the stage its
+/// field feeds; the renderer re-runs that stage and everything downstream of it.
+public enum RenderStage {
+    /// Timing, sweep, jitter, phase noise and the unit-amplitude shape and harmonic
+    CARRIER,
+    /// Amplitude, drift and harmonic level
+    MIX,
+    /// DC offset, burst gating and quantization
+    FINISH,
+    MODULATION,
+    /// Unit-amplitude noise vector
+    NOISE,
+    /// Noise scaling, sum and clip
+    OUTPUT
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package awg.simulation.software;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/// Record storage decoupled from the double[] the stages compute in. Stages work on small double
+/// blocks and move them in and out of the buffer, so the record itself can be narrower than float64.
+public interface SampleBuffer {
+    long length();
+
+    SamplePrecision precision();
+
+    double get(long index);
+
+    void set(long index, double value);
+
+    void read(long index, double[] block, int offset, int length);
+
+    void write(long index, double[] block, int offset, int length);
+
+    default long sizeInBytes() {
+        return length() * precision().getBytesPerSample();
+    }
+
+    /// Writes the record as raw little-endian samples in its own precision (Q15 for Int16)
+    default void exportTo(WritableByteChannel channel) throws IOException {
+        int blockSize = 4096;
+        double[] block = new double[blockSize];
+        ByteBuffer bytes = ByteBuffer.allocate(blockSize * precision().getBytesPerSample()).order(ByteOrder.LITTLE_ENDIAN);
+        long length = length();
+        for (long start = 0; start < length; start += blockSize) {
+            int count = (int) Math.min(blockSize, length - start);
+            read(start, block, 0, count);
+            bytes.clear();
+            for (int i = 0; i < count; i++) {
+                switch (precision()) {
+                    case FLOAT32:
+                        bytes.putFloat((float) block[i]);
+                        break;
+                    case INT16:
+                        bytes.putShort(Int16SampleBuffer.toFixed(block[i]));
+                        break;
+                    default:
+                        bytes.putDouble(block[i]);
+                }
+            }
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,58 @@
+package awg.simulation.software;
+
+/// Array kernels for the hot per-sample stages. The vector backend replaces Math.sin with a
+/// range-reduced degree-15 polynomial (|error| <= SINE_TOLERANCE); every other kernel is bit-identical to scalar.
+public interface SampleKernels {
+    double SINE_TOLERANCE = 1e-11;
+
+    /// out[i] = start + i * increment
+    void ramp(double[] out, int length, double start, double increment);
+
+    /// out[i] = sin(in[i]), in and out may be the same array
+    void sine(double[] in, double[] out, int length);
+
+    /// samples[i] = a * samples[i] + b * other[i]
+    void combine(double[] samples, double[] other, int length, double a, double b);
+
+    /// samples[i] *= start + i * increment
+    void scaleRamp(double[] samples, int length, double start, double increment);
+
+    /// samples[i] += offset
+    void offset(double[] samples, int length, double offset);
+
+    /// samples[i] = clip(round(samples[i] / step) * step)
+    void quantize(double[] samples, int length, double step);
+
+    /// out[i] = samples[i] * (1 + modIndex * carrier[i])
+    void amModulate(double[] samples, double[] carrier, double[] out, int length, double modIndex);
+
+    /// samples[i] = clip(samples[i] + noise[i])
+    void addClip(double[] samples, double[] noise, int length);
+
+    String name();
+
+    static SampleKernels scalar() {
+        return ScalarKernels.INSTANCE;
+    }
+
+    /// Widest available backend: the Vector API when jdk.incubator.vector is resolvable, scalar otherwise
+    static SampleKernels preferred() {
+        return Holder.PREFERRED;
+    }
+
+    final class Holder {
+        private static final SampleKernels PREFERRED = load();
+
+        private Holder() {
+        }
+
+        private static SampleKernels load() {
+            try {
+                Class.forName("jdk.incubator.vector.DoubleVector");
+                return new VectorKernels();
+            } catch (ClassNotFoundException | LinkageError e) {
+                return ScalarKernels.INSTANCE;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package awg.simulation.software;
+
+public enum SamplePrecision {
+    FLOAT64("Float64", Double.BYTES),
+    FLOAT32("Float32", Float.BYTES),
+    /// Q15 fixed point: full scale [-1, 1) maps to [-32768, 32767], values outside saturate
+    INT16("Int16", Short.BYTES);
+
+    private final String label;
+    private final int bytesPerSample;
+
+    SamplePrecision(String label, int bytesPerSample) {
+        this.label = label;
+        this.bytesPerSample = bytesPerSample;
+    }
+
+    public static SamplePrecision fromLabel(String label) {
+        for (SamplePrecision precision : values()) {
+            if (precision.label.equals(label)) {
+                return precision;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sample precision: " + label);
+    }
+
+    public SampleBuffer allocate(int length) {
+        switch (this) {
+            case FLOAT32:
+                return new FloatSampleBuffer(length);
+            case INT16:
+                return new Int16SampleBuffer(length);
+            default:
+                return new DoubleSampleBuffer(new double[length]);
+        }
+    }
+
+    /// Off-heap storage for records too long (or too large) for a Java array
+    public SegmentSampleBuffer allocateOffHeap(long length) {
+        return SegmentSampleBuffer.allocate(this, length);
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int getBytesPerSample() {
+        return bytesPerSample;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package awg.simulation.software;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/// Lock-free single-producer/single-consumer ring of samples. Exactly one thread may offer and exactly one
+/// other thread may poll. Indices only grow; the producer publishes its index after copying, the consumer
+/// after reading, so each side sees whole blocks without locks.
+public class SampleRingBuffer {
+    private final double[] samples;
+    private final int mask;
+    private final AtomicLong writeIndex = new AtomicLong();
+    private final AtomicLong readIndex = new AtomicLong();
+    /// Each side caches the other's index and only rereads it when the cached value says full or empty
+    private long cachedReadIndex;
+    private long cachedWriteIndex;
+
+    /// Capacity is rounded up to a power of two
+    public SampleRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        samples = new double[size];
+        mask = size - 1;
+    }
+
+    /// Producer side: copies up to length samples and returns how many fit
+    public int offer(double[] block, int offset, int length) {
+        long write = writeIndex.get();
+        int free = (int) (samples.length - (write - cachedReadIndex));
+        if (free < length) {
+            cachedReadIndex = readIndex.get();
+            free = (int) (samples.length - (write - cachedReadIndex));
+        }
+        int count = Math.min(free, length);
+        if (count <= 0) {
+            return 0;
+        }
+        int start = (int) (write & mask);
+        int first = Math.min(count, samples.length - start);
+        System.arraycopy(block, offset, samples, start, first);
+        System.arraycopy(block, offset + first, samples, 0, count - first);
+        writeIndex.lazySet(write + count);
+        return count;
+    }
+
+    /// Consumer side: copies up to length samples out and returns how many were available
+    public int poll(double[] block, int offset, int length) {
+        long read = readIndex.get();
+        int available = (int) (cachedWriteIndex - read);
+        if (available < length) {
+            cachedWriteIndex = writeIndex.get();
+            available = (int) (cachedWriteIndex - read);
+        }
+        int count = Math.min(available, length);
+        if (count <= 0) {
+            return 0;
+        }
+        int start = (int) (read & mask);
+        int first = Math.min(count, samples.length - start);
+        System.arraycopy(samples, start, block, offset, first);
+        System.arraycopy(samples, 0, block, offset + first, count - first);
+        readIndex.lazySet(read + count);
+        return count;
+    }
+
+    /// Samples waiting; exact only when called from one of the two sides while the other is idle
+    public int size() {
+        return (int) (writeIndex.get() - readIndex.get());
+    }
+
+    public int capacity() {
+        return samples.length;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package awg.simulation.software;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/// Destination of a live output stream. Blocks arrive in order from a single thread.
+public interface SampleSink extends AutoCloseable {
+    void write(double[] block, int offset, int length) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+
+    /// Discards everything; measures the engine without any I/O cost
+    static SampleSink nullSink() {
+        return (block, offset, length) -> {
+        };
+    }
+
+    /// Raw little-endian samples in the given precision (Q15 for Int16). A named pipe works like a file;
+    /// opening it blocks until a reader attaches.
+    static SampleSink toFile(Path path, SamplePrecision precision) throws IOException {
+        return toChannel(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), precision);
+    }
+
+    static SampleSink toChannel(WritableByteChannel channel, SamplePrecision precision) {
+        return new SampleSink() {
+            private ByteBuffer bytes = ByteBuffer.allocate(0);
+
+            @Override
+            public void write(double[] block, int offset, int length) throws IOException {
+                if (bytes.capacity() < length * precision.getBytesPerSample()) {
+                    bytes = ByteBuffer.allocate(length * precision.getBytesPerSample()).order(ByteOrder.LITTLE_ENDIAN);
+                }
+                bytes.clear();
+                for (int i = offset; i < offset + length; i++) {
+                    switch (precision) {
+                        case FLOAT32:
+                            bytes.putFloat((float) block[i]);
+                            break;
+                        case INT16:
+                            bytes.putShort(Int16SampleBuffer.toFixed(block[i]));
+                            break;
+                        default:
+                            bytes.putDouble(block[i]);
+                    }
+                }
+                bytes.flip();
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package awg.simulation.software;
+
+public class ScalarKernels implements SampleKernels {
+    static final ScalarKernels INSTANCE = new ScalarKernels();
+
+    @Override
+    public void ramp(double[] out, int length, double start, double increment) {
+        for (int i = 0; i < length; i++) {
+            out[i] = start + i * increment;
+        }
+    }
+
+    @Override
+    public void sine(double[] in, double[] out, int length) {
+        for (int i = 0; i < length; i++) {
+            out[i] = Math.sin(in[i]);
+        }
+    }
+
+    @Override
+    public void combine(double[] samples, double[] other, int length, double a, double b) {
+        for (int i = 0; i < length; i++) {
+            samples[i] = a * samples[i] + b * other[i];
+        }
+    }
+
+    @Override
+    public void scaleRamp(double[] samples, int length, double start, double increment) {
+        for (int i = 0; i < length; i++) {
+            samples[i] *= start + i * increment;
+        }
+    }
+
+    @Override
+    public void offset(double[] samples, int length, double offset) {
+        for (int i = 0; i < length; i++) {
+            samples[i] += offset;
+        }
+    }
+
+    @Override
+    public void quantize(double[] samples, int length, double step) {
+        for (int i = 0; i < length; i++) {
+            double quantized = Math.round(samples[i] / step) * step;
+            samples[i] = Math.max(-1, Math.min(1, quantized));
+        }
+    }
+
+    @Override
+    public void amModulate(double[] samples, double[] carrier, double[] out, int length, double modIndex) {
+        for (int i = 0; i < length; i++) {
+            out[i] = samples[i] * (1 + modIndex * carrier[i]);
+        }
+    }
+
+    @Override
+    public void addClip(double[] samples, double[] noise, int length) {
+        for (int i = 0; i < length; i++) {
+            samples[i] = Math.max(-1, Math.min(1, samples[i] + noise[i]));
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
\ No newline at end of file
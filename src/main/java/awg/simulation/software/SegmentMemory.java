@@ -0,0 +1,67 @@
+package awg.simulation.software;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/// Named waveform segments held once and shared by every sequence step that plays them, like the waveform
+/// memory of a hardware AWG. Stored buffers are played by reference, so callers must not modify them.
+public class SegmentMemory {
+    private final LinkedHashMap<String, SampleBuffer> segments = new LinkedHashMap<>();
+    private long sizeBytes;
+
+    public synchronized void store(String name, SampleBuffer segment) {
+        if (segment.length() == 0) {
+            throw new IllegalArgumentException("Segment must not be empty: " + name);
+        }
+        SampleBuffer previous = segments.put(name, segment);
+        if (previous != null) {
+            sizeBytes -= previous.sizeInBytes();
+        }
+        sizeBytes += segment.sizeInBytes();
+    }
+
+    /// Renders the snapshot (generation, modulation and noise) and stores it under name
+    public SampleBuffer generate(String name, WaveformSnapshot snapshot, RandomGenerator random) {
+        SampleBuffer segment = SignalChain.render(snapshot, random);
+        store(name, segment);
+        return segment;
+    }
+
+    /// Stores the bare oscillator output of generator for the given settings
+    public SampleBuffer generate(String name, WaveformGenerator generator, String type, WaveformData data) {
+        double[] samples = new double[data.getSamples()];
+        generator.generateInto(type, data, samples, 0);
+        SampleBuffer segment = new DoubleSampleBuffer(samples);
+        store(name, segment);
+        return segment;
+    }
+
+    public synchronized SampleBuffer get(String name) {
+        SampleBuffer segment = segments.get(name);
+        if (segment == null) {
+            throw new IllegalArgumentException("Unknown segment: " + name);
+        }
+        return segment;
+    }
+
+    public synchronized boolean contains(String name) {
+        return segments.containsKey(name);
+    }
+
+    public synchronized void remove(String name) {
+        SampleBuffer removed = segments.remove(name);
+        if (removed != null) {
+            sizeBytes -= removed.sizeInBytes();
+        }
+    }
+
+    public synchronized List<String> names() {
+        return new ArrayList<>(segments.keySet());
+    }
+
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,152 @@
+package awg.simulation.software;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/// Off-heap record storage on a MemorySegment, either arena-allocated or memory-mapped to a file.
+/// Lengths are long, nothing is visible to the GC, and samples are stored little-endian so mapped
+/// files are portable. The Foreign Function & Memory API is final from JDK 22, the project baseline.
+public class SegmentSampleBuffer implements SampleBuffer, AutoCloseable {
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    /// Largest slice handed to a channel in one write (ByteBuffers are int-indexed)
+    private static final long EXPORT_CHUNK = 1L << 30;
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final SamplePrecision precision;
+    private final long length;
+
+    private SegmentSampleBuffer(Arena arena, MemorySegment segment, SamplePrecision precision, long length) {
+        this.arena = arena;
+        this.segment = segment;
+        this.precision = precision;
+        this.length = length;
+    }
+
+    public static SegmentSampleBuffer allocate(SamplePrecision precision, long length) {
+        Arena arena = Arena.ofShared();
+        MemorySegment segment = arena.allocate(length * precision.getBytesPerSample(), Double.BYTES);
+        return new SegmentSampleBuffer(arena, segment, precision, length);
+    }
+
+    /// Maps (creating or resizing) a raw little-endian sample file; writes land in the page cache, not the heap
+    public static SegmentSampleBuffer map(Path file, SamplePrecision precision, long length) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, length * precision.getBytesPerSample(), arena);
+            return new SegmentSampleBuffer(arena, segment, precision, length);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public SamplePrecision precision() {
+        return precision;
+    }
+
+    @Override
+    public double get(long index) {
+        switch (precision) {
+            case FLOAT32:
+                return segment.getAtIndex(FLOAT, index);
+            case INT16:
+                return segment.getAtIndex(SHORT, index) / Int16SampleBuffer.SCALE;
+            default:
+                return segment.getAtIndex(DOUBLE, index);
+        }
+    }
+
+    @Override
+    public void set(long index, double value) {
+        switch (precision) {
+            case FLOAT32:
+                segment.setAtIndex(FLOAT, index, (float) value);
+                break;
+            case INT16:
+                segment.setAtIndex(SHORT, index, Int16SampleBuffer.toFixed(value));
+                break;
+            default:
+                segment.setAtIndex(DOUBLE, index, value);
+        }
+    }
+
+    @Override
+    public void read(long index, double[] block, int offset, int length) {
+        switch (precision) {
+            case FLOAT32:
+                for (int i = 0; i < length; i++) {
+                    block[offset + i] = segment.getAtIndex(FLOAT, index + i);
+                }
+                break;
+            case INT16:
+                for (int i = 0; i < length; i++) {
+                    block[offset + i] = segment.getAtIndex(SHORT, index + i) / Int16SampleBuffer.SCALE;
+                }
+                break;
+            default:
+                MemorySegment.copy(segment, DOUBLE, index * Double.BYTES, block, offset, length);
+        }
+    }
+
+    @Override
+    public void write(long index, double[] block, int offset, int length) {
+        switch (precision) {
+            case FLOAT32:
+                for (int i = 0; i < length; i++) {
+                    segment.setAtIndex(FLOAT, index + i, (float) block[offset + i]);
+                }
+                break;
+            case INT16:
+                for (int i = 0; i < length; i++) {
+                    segment.setAtIndex(SHORT, index + i, Int16SampleBuffer.toFixed(block[offset + i]));
+                }
+                break;
+            default:
+                MemorySegment.copy(block, offset, segment, DOUBLE, index * Double.BYTES, length);
+        }
+    }
+
+    /// Exports the raw little-endian samples without copying them onto the heap
+    @Override
+    public void exportTo(WritableByteChannel channel) throws IOException {
+        long size = segment.byteSize();
+        for (long position = 0; position < size; position += EXPORT_CHUNK) {
+            var bytes = segment.asSlice(position, Math.min(EXPORT_CHUNK, size - position)).asByteBuffer();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+
+    public MemorySegment segment() {
+        return segment;
+    }
+
+    /// Flushes a mapped buffer to its file; a no-op for arena-allocated memory
+    public void force() {
+        if (segment.isMapped()) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
\ No newline at end of file
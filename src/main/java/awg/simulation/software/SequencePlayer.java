@@ -0,0 +1,111 @@
+package awg.simulation.software;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/// Plays a sequence table from segment memory. Output is handed out as views into the stored segments, so a
+/// long pattern built from a few short segments never materializes: memory stays at the segments themselves
+/// however many loops the table asks for. Segment references are resolved once, when the player is created.
+public class SequencePlayer {
+    private final SampleBuffer[] segments;
+    private final long[] loops;
+    private final int[] successors;
+    private int step;
+    private long loop;
+    private long offset;
+    private long position;
+
+    /// Read-only window [offset, offset + length) of a stored segment
+    public record View(SampleBuffer segment, long offset, int length) {
+        public void read(double[] block, int blockOffset) {
+            segment.read(offset, block, blockOffset, length);
+        }
+    }
+
+    public SequencePlayer(SequenceTable table, SegmentMemory memory) {
+        List<SequenceTable.Step> steps = table.getSteps();
+        segments = new SampleBuffer[steps.size()];
+        loops = new long[steps.size()];
+        successors = new int[steps.size()];
+        for (int i = 0; i < steps.size(); i++) {
+            segments[i] = memory.get(steps.get(i).segment());
+            loops[i] = steps.get(i).loops();
+            successors[i] = table.successor(i);
+            if (successors[i] > steps.size()) {
+                throw new IllegalArgumentException("Step " + i + " jumps past the end of the sequence");
+            }
+        }
+    }
+
+    /// Next stretch of output, at most maxLength samples and never crossing a segment boundary; null at the end
+    public View nextView(int maxLength) {
+        if (step >= segments.length || maxLength <= 0) {
+            return null;
+        }
+        SampleBuffer segment = segments[step];
+        int length = (int) Math.min(maxLength, segment.length() - offset);
+        View view = new View(segment, offset, length);
+        offset += length;
+        position += length;
+        if (offset == segment.length()) {
+            offset = 0;
+            if (++loop == loops[step]) {
+                loop = 0;
+                step = successors[step];
+            }
+        }
+        return view;
+    }
+
+    /// Copying form for consumers that need contiguous blocks: fills up to length samples across segment
+    /// boundaries and returns the count, or -1 once the sequence has ended
+    public int read(double[] block, int blockOffset, int length) {
+        int filled = 0;
+        View view;
+        while (filled < length && (view = nextView(length - filled)) != null) {
+            view.read(block, blockOffset + filled);
+            filled += view.length();
+        }
+        return filled == 0 && length > 0 ? -1 : filled;
+    }
+
+    public int read(double[] block) {
+        return read(block, 0, block.length);
+    }
+
+    /// Streams up to maxSamples as little-endian float64 samples, one segment view at a time
+    public long transferTo(OutputStream out, int blockSize, long maxSamples) throws IOException {
+        double[] block = new double[blockSize];
+        ByteBuffer bytes = ByteBuffer.allocate(blockSize * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long transferred = 0;
+        View view;
+        while (transferred < maxSamples && (view = nextView((int) Math.min(blockSize, maxSamples - transferred))) != null) {
+            view.read(block, 0);
+            bytes.clear();
+            bytes.asDoubleBuffer().put(block, 0, view.length());
+            out.write(bytes.array(), 0, view.length() * Double.BYTES);
+            transferred += view.length();
+        }
+        return transferred;
+    }
+
+    /// Samples played so far
+    public long getPosition() {
+        return position;
+    }
+
+    public boolean hasRemaining() {
+        return step < segments.length;
+    }
+
+    /// Back to the first sample of the first step
+    public void rewind() {
+        step = 0;
+        loop = 0;
+        offset = 0;
+        position = 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package awg.simulation.software;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/// Ordered sequence of segment references with loop counts. After its loops a step continues with the next
+/// step, or with jumpTo if set; running past the last step ends the sequence. A jump back makes it endless.
+public class SequenceTable {
+    public static final int NEXT = -1;
+
+    private final List<Step> steps = new ArrayList<>();
+
+    public record Step(String segment, long loops, int jumpTo) {
+        public Step {
+            if (loops < 1) {
+                throw new IllegalArgumentException("Loop count must be at least 1");
+            }
+            if (jumpTo < NEXT) {
+                throw new IllegalArgumentException("Invalid jump target: " + jumpTo);
+            }
+        }
+    }
+
+    public SequenceTable add(String segment, long loops) {
+        return add(segment, loops, NEXT);
+    }
+
+    public SequenceTable add(String segment, long loops, int jumpTo) {
+        steps.add(new Step(segment, loops, jumpTo));
+        return this;
+    }
+
+    public List<Step> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    public int size() {
+        return steps.size();
+    }
+
+    /// Index of the step played after step index, or size() at the end of the sequence
+    int successor(int index) {
+        int jumpTo = steps.get(index).jumpTo();
+        return jumpTo == NEXT ? index + 1 : jumpTo;
+    }
+
+    /// Total samples played, or WaveformStream.UNBOUNDED if the sequence never ends
+    public long length(SegmentMemory memory) {
+        boolean[] visited = new boolean[steps.size()];
+        long total = 0;
+        for (int index = 0; index < steps.size(); index = successor(index)) {
+            if (visited[index]) {
+                return WaveformStream.UNBOUNDED;
+            }
+            visited[index] = true;
+            Step step = steps.get(index);
+            long segmentLength = memory.get(step.segment()).length();
+            if (step.loops() > (WaveformStream.UNBOUNDED - total) / segmentLength) {
+                return WaveformStream.UNBOUNDED;
+            }
+            total += step.loops() * segmentLength;
+        }
+        return total;
+    }
+}
\ No newline at end of file
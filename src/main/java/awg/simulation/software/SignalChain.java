@@ -0,0 +1,70 @@
+package awg.simulation.software;
+
+import java.util.random.RandomGenerator;
+
+/// Renders generation, modulation and noise block by block into a SampleBuffer of any precision, so the only
+/// record-sized allocation is the output buffer itself. Arithmetic inside a block stays in double.
+public class SignalChain {
+    public static final int BLOCK_SIZE = 4096;
+
+    private final WaveformGenerator waveformGenerator;
+    private final ModulationManager modulationManager;
+    private final NoiseGenerator noiseGenerator;
+
+    public SignalChain(WaveformGenerator waveformGenerator, ModulationManager modulationManager, NoiseGenerator noiseGenerator) {
+        this.waveformGenerator = waveformGenerator;
+        this.modulationManager = modulationManager;
+        this.noiseGenerator = noiseGenerator;
+    }
+
+    /// Reentrant entry point: renders the snapshot at its own sample precision on fresh generators, so any
+    /// number of threads may render at once. Generation and noise draw from two streams split off random.
+    public static SampleBuffer render(WaveformSnapshot snapshot, RandomGenerator random) {
+        SampleBuffer output = SamplePrecision.fromLabel(snapshot.samplePrecision()).allocate(snapshot.samples());
+        render(snapshot, random, output);
+        return output;
+    }
+
+    public static void render(WaveformSnapshot snapshot, RandomGenerator random, SampleBuffer output) {
+        render(snapshot, random.nextLong(), output);
+    }
+
+    /// Generation draws from RandomSource.forStream(seed, 0) and noise from forStream(seed, 1)
+    public static void render(WaveformSnapshot snapshot, long seed, SampleBuffer output) {
+        WaveformData data = snapshot.toData();
+        SignalChain chain = new SignalChain(new WaveformGenerator(snapshot.customPoints(), RandomSource.forStream(seed, 0)),
+                new ModulationManager(), new NoiseGenerator(snapshot.customNoise(), snapshot.spectralProfile(), data,
+                RandomSource.forStream(seed, 1)));
+        chain.render(snapshot.type(), snapshot.modulationType(), data, output);
+    }
+
+    public SampleBuffer render(String type, String modulationType, WaveformData data, SamplePrecision precision) {
+        SampleBuffer output = precision.allocate(data.getSamples());
+        render(type, modulationType, data, output);
+        return output;
+    }
+
+    public void render(String type, String modulationType, WaveformData data, SampleBuffer output) {
+        boolean modulate = modulationType != null && !modulationType.equals("None");
+        String noiseType = data.getNoiseType();
+        double noiseAmplitude = data.getNoiseAmplitude();
+        boolean addNoise = noiseType != null && !noiseType.equals("None") && noiseAmplitude > 0;
+        SampleKernels kernels = data.isVectorBackend() ? SampleKernels.preferred() : SampleKernels.scalar();
+        double[] block = new double[BLOCK_SIZE];
+        double[] noise = addNoise ? new double[BLOCK_SIZE] : null;
+        long length = output.length();
+        for (long start = 0; start < length; start += BLOCK_SIZE) {
+            WaveformRenderService.checkCancelled();
+            int count = (int) Math.min(BLOCK_SIZE, length - start);
+            waveformGenerator.generateInto(type, data, block, 0, count, start);
+            if (modulate) {
+                modulationManager.modulateBlock(block, count, start, modulationType, data);
+            }
+            if (addNoise) {
+                noiseGenerator.generateNoise(noiseType, noiseAmplitude, noise, count, start);
+                kernels.addClip(block, noise, count);
+            }
+            output.write(start, block, 0, count);
+        }
+    }
+}
\ No newline at end of file
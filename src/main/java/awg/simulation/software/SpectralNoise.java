@@ -0,0 +1,100 @@
+package awg.simulation.software;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/// Gaussian noise whose one-sided power spectral density follows a profile of (log10 frequency, dBc/Hz)
+/// points. The profile is turned into a linear-phase FIR filter once; white noise is then filtered frame by
+/// frame with FFT overlap-add, two real frames per complex transform. Memory is a few transform-sized arrays
+/// whatever the record length, and the frames sit on a fixed grid, so any block size gives the same stream.
+/// Levels are relative to a carrier of the given amplitude (power amplitude^2 / 2).
+public class SpectralNoise {
+    /// Filter length; it sets the frequency resolution to samplingRate / TAPS
+    public static final int TAPS = 1 << 15;
+    /// Twice the filter, so a frame's linear convolution (FRAME + TAPS - 1 samples) never wraps around
+    private static final int SIZE = 2 * TAPS;
+    private static final int FRAME = SIZE - TAPS;
+
+    private final Fft fft = new Fft(SIZE);
+    private final double[] responseRe = new double[SIZE];
+    private final double[] responseIm = new double[SIZE];
+    private final double[] re = new double[SIZE];
+    private final double[] im = new double[SIZE];
+    /// Overlap-add accumulator: [position, SIZE) is complete output, [SIZE, 2 * SIZE) holds frame tails
+    private final double[] pending = new double[2 * SIZE];
+    private int position = SIZE;
+
+    public SpectralNoise(CustomWaveform profile, double samplingRate) {
+        System.arraycopy(design(profile, samplingRate), 0, responseRe, 0, TAPS);
+        fft.forward(responseRe, responseIm);
+    }
+
+    /// Filter taps for a carrier amplitude of 1. The profile is interpolated linearly in dB over log
+    /// frequency and held flat beyond its end points; the zero-phase response is Hann-windowed to TAPS.
+    public static double[] design(CustomWaveform profile, double samplingRate) {
+        double[] magnitude = new double[TAPS];
+        double[] imaginary = new double[TAPS];
+        CustomWaveform.Cursor cursor = profile.cursor();
+        double lowest = profile.startTime();
+        for (int k = 0; k <= TAPS / 2; k++) {
+            double level = cursor.valueAt(Math.max(lowest, Math.log10(k * samplingRate / TAPS)));
+            /// Unit white noise has a one-sided density of 2 / fs; the carrier power is 1/2
+            double value = Math.sqrt(0.5 * Math.pow(10, level / 10) * samplingRate / 2);
+            magnitude[k] = value;
+            magnitude[(TAPS - k) % TAPS] = value;
+        }
+        new Fft(TAPS).inverse(magnitude, imaginary);
+        double[] taps = new double[TAPS];
+        for (int n = 0; n < TAPS; n++) {
+            int lag = n - TAPS / 2;
+            taps[n] = magnitude[Math.floorMod(lag, TAPS)] * (0.5 + 0.5 * Math.cos(2 * Math.PI * lag / TAPS));
+        }
+        return taps;
+    }
+
+    /// Starts a new stream; the first frame pair is discarded because it lacks the filter's history
+    public void reset(RandomGenerator random) {
+        Arrays.fill(pending, 0);
+        nextFrames(random);
+        position = SIZE;
+    }
+
+    /// Next length samples of the stream into out[offset, ...) for a carrier of the given amplitude
+    public void fill(RandomGenerator random, double[] out, int offset, int length, double amplitude) {
+        int done = 0;
+        while (done < length) {
+            if (position == SIZE) {
+                nextFrames(random);
+            }
+            int count = Math.min(length - done, SIZE - position);
+            for (int i = 0; i < count; i++) {
+                out[offset + done + i] = amplitude * pending[position + i];
+            }
+            position += count;
+            done += count;
+        }
+    }
+
+    /// Filters two new frames: the first in the real part, the second (one frame later) in the imaginary part.
+    /// The taps are real, so the two convolutions come back separated.
+    private void nextFrames(RandomGenerator random) {
+        System.arraycopy(pending, SIZE, pending, 0, SIZE);
+        Arrays.fill(pending, SIZE, 2 * SIZE, 0);
+        Ziggurat.fill(random, re, 0, FRAME, 0, 1);
+        Ziggurat.fill(random, im, 0, FRAME, 0, 1);
+        Arrays.fill(re, FRAME, SIZE, 0);
+        Arrays.fill(im, FRAME, SIZE, 0);
+        fft.forward(re, im);
+        for (int k = 0; k < SIZE; k++) {
+            double r = re[k] * responseRe[k] - im[k] * responseIm[k];
+            im[k] = re[k] * responseIm[k] + im[k] * responseRe[k];
+            re[k] = r;
+        }
+        fft.inverse(re, im);
+        for (int i = 0; i < SIZE; i++) {
+            pending[i] += re[i];
+            pending[FRAME + i] += im[i];
+        }
+        position = 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package awg.simulation.software;
+
+/// One-sided power spectral density by Welch's method: Hann-windowed segments overlapping by half, averaged.
+/// Used to check generated noise and phase noise against the density they were asked for.
+public class SpectrumEstimate {
+    private final double[] density;
+    private final double resolution;
+
+    private SpectrumEstimate(double[] density, double resolution) {
+        this.density = density;
+        this.resolution = resolution;
+    }
+
+    /// segmentLength must be a power of two no longer than samples
+    public static SpectrumEstimate of(double[] samples, int segmentLength, double samplingRate) {
+        if (segmentLength > samples.length) {
+            throw new IllegalArgumentException("Segment longer than the record");
+        }
+        Fft fft = new Fft(segmentLength);
+        double[] window = new double[segmentLength];
+        double windowPower = 0;
+        for (int i = 0; i < segmentLength; i++) {
+            window[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / segmentLength);
+            windowPower += window[i] * window[i];
+        }
+        double[] density = new double[segmentLength / 2 + 1];
+        double[] re = new double[segmentLength];
+        double[] im = new double[segmentLength];
+        int segments = 0;
+        for (int start = 0; start + segmentLength <= samples.length; start += segmentLength / 2) {
+            for (int i = 0; i < segmentLength; i++) {
+                re[i] = samples[start + i] * window[i];
+                im[i] = 0;
+            }
+            fft.forward(re, im);
+            for (int k = 0; k < density.length; k++) {
+                density[k] += re[k] * re[k] + im[k] * im[k];
+            }
+            segments++;
+        }
+        /// Two-sided periodogram scaling, doubled for every bin except DC and Nyquist
+        double scale = 1 / (segments * windowPower * samplingRate);
+        for (int k = 0; k < density.length; k++) {
+            density[k] *= k == 0 || k == density.length - 1 ? scale : 2 * scale;
+        }
+        return new SpectrumEstimate(density, samplingRate / segmentLength);
+    }
+
+    public double getResolution() {
+        return resolution;
+    }
+
+    /// Mean density (power per Hz) over the bins within bins of frequency
+    public double densityAt(double frequency, int bins) {
+        int center = (int) Math.round(frequency / resolution);
+        double sum = 0;
+        int count = 0;
+        for (int k = Math.max(0, center - bins); k <= Math.min(density.length - 1, center + bins); k++) {
+            sum += density[k];
+            count++;
+        }
+        return sum / count;
+    }
+
+    /// Density at frequency relative to a carrier of the given power, in dBc/Hz
+    public double dbcPerHz(double frequency, double carrierPower, int bins) {
+        return 10 * Math.log10(densityAt(frequency, bins) / carrierPower);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,143 @@
+package awg.simulation.software;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/// Digital PSK/QAM source: bits from a BitSource are mapped to constellation points, shaped by a
+/// root-raised-cosine polyphase interpolator and upconverted to carrierFreq with a QuadratureNco
+/// (I * cos - Q * sin; a zero carrier leaves the in-phase baseband). The default amplitude is the largest
+/// that can never exceed full scale. Output is a stream: reads continue where the previous one stopped, and
+/// the first span / 2 symbols are the filter's ramp-in. Symbols are mapped and shaped a block at a time.
+public class SymbolModulator {
+    public static final double DEFAULT_ROLLOFF = 0.35;
+    public static final int DEFAULT_SPAN = 8;
+    public static final String[] BIT_SOURCES = {"PRBS7", "PRBS9", "PRBS11", "PRBS15", "PRBS20", "PRBS23", "PRBS31", "File"};
+    private static final int SYMBOL_BLOCK = 512;
+
+    private final BitSource bits;
+    private final Constellation constellation;
+    private final PolyphaseInterpolator inPhase;
+    private final PolyphaseInterpolator quadrature;
+    private final QuadratureNco carrier;
+    private final int samplesPerSymbol;
+    private final double[] symbolI = new double[SYMBOL_BLOCK];
+    private final double[] symbolQ = new double[SYMBOL_BLOCK];
+    /// Shaped baseband of the current symbol block and the read position in it
+    private final double[] shapedI;
+    private final double[] shapedQ;
+    private int shapedPosition;
+    private double amplitude;
+    private long symbols;
+
+    public SymbolModulator(BitSource bits, Constellation constellation, double symbolRate, double samplingRate, double carrierFreq) {
+        this(bits, constellation, symbolRate, samplingRate, carrierFreq, DEFAULT_ROLLOFF, DEFAULT_SPAN);
+    }
+
+    public SymbolModulator(BitSource bits, Constellation constellation, double symbolRate, double samplingRate,
+                           double carrierFreq, double rolloff, int span) {
+        long factor = Math.round(samplingRate / symbolRate);
+        if (factor < 1 || Math.abs(factor * symbolRate - samplingRate) > 1e-9 * samplingRate) {
+            throw new IllegalArgumentException("Sampling rate must be an integer multiple of the symbol rate");
+        }
+        this.bits = bits;
+        this.constellation = constellation;
+        this.samplesPerSymbol = (int) factor;
+        double[] taps = PolyphaseInterpolator.rootRaisedCosine(rolloff, span, samplesPerSymbol);
+        this.inPhase = new PolyphaseInterpolator(taps, samplesPerSymbol);
+        this.quadrature = new PolyphaseInterpolator(taps, samplesPerSymbol);
+        this.carrier = new QuadratureNco(carrierFreq, samplingRate);
+        this.shapedI = new double[SYMBOL_BLOCK * samplesPerSymbol];
+        this.shapedQ = new double[SYMBOL_BLOCK * samplesPerSymbol];
+        this.shapedPosition = shapedI.length;
+        this.amplitude = 1 / (constellation.peakMagnitude() * inPhase.peakGain());
+    }
+
+    /// The "Digital" modulation type: constellation, symbol rate and bit source from the settings, scaled by the amplitude
+    public static SymbolModulator forData(WaveformData data) {
+        SymbolModulator modulator = new SymbolModulator(bitSource(data), Constellation.forName(data.getConstellation()),
+                data.getSymbolRate(), data.getSamplingRate(), data.getCarrierFreq());
+        modulator.setAmplitude(modulator.getAmplitude() * data.getAmplitude());
+        return modulator;
+    }
+
+    /// A fresh PRBS register, or the bit file read from the start
+    static BitSource bitSource(WaveformData data) {
+        String source = data.getBitSource();
+        if (!source.equals("File")) {
+            return new Prbs(Integer.parseInt(source.substring("PRBS".length())));
+        }
+        if (data.getBitFile().isBlank()) {
+            throw new IllegalArgumentException("Import a bit file first");
+        }
+        try {
+            return new FileBitSource(Path.of(data.getBitFile()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read bit file " + data.getBitFile(), e);
+        }
+    }
+
+    /// Applies to symbols mapped after the call
+    public void setAmplitude(double amplitude) {
+        this.amplitude = amplitude;
+    }
+
+    public double getAmplitude() {
+        return amplitude;
+    }
+
+    public int getSamplesPerSymbol() {
+        return samplesPerSymbol;
+    }
+
+    /// Symbols drawn from the bit source so far (up to one block ahead of the output)
+    public long getSymbolCount() {
+        return symbols;
+    }
+
+    /// Fills block[offset, offset + length) with the passband signal and returns length; the stream is endless
+    public int read(double[] block, int offset, int length) {
+        for (int n = offset; n < offset + length; ) {
+            if (shapedPosition == shapedI.length) {
+                shapeNextSymbols();
+            }
+            int count = Math.min(offset + length - n, shapedI.length - shapedPosition);
+            for (int k = shapedPosition; k < shapedPosition + count; k++, n++) {
+                block[n] = shapedI[k] * carrier.cos() - shapedQ[k] * carrier.sin();
+                carrier.advance();
+            }
+            shapedPosition += count;
+        }
+        return length;
+    }
+
+    /// Baseband form for I/Q outputs: the shaped in-phase and quadrature components, not upconverted
+    public void readIq(double[] i, double[] q, int offset, int length) {
+        for (int n = offset; n < offset + length; ) {
+            if (shapedPosition == shapedI.length) {
+                shapeNextSymbols();
+            }
+            int count = Math.min(offset + length - n, shapedI.length - shapedPosition);
+            System.arraycopy(shapedI, shapedPosition, i, n, count);
+            System.arraycopy(shapedQ, shapedPosition, q, n, count);
+            for (int k = 0; k < count; k++) {
+                carrier.advance();
+            }
+            shapedPosition += count;
+            n += count;
+        }
+    }
+
+    private void shapeNextSymbols() {
+        int bitsPerSymbol = constellation.getBitsPerSymbol();
+        for (int s = 0; s < SYMBOL_BLOCK; s++) {
+            int symbol = bits.nextBits(bitsPerSymbol);
+            symbolI[s] = amplitude * constellation.inPhase(symbol);
+            symbolQ[s] = amplitude * constellation.quadrature(symbol);
+        }
+        inPhase.interpolate(symbolI, 0, SYMBOL_BLOCK, shapedI, 0);
+        quadrature.interpolate(symbolQ, 0, SYMBOL_BLOCK, shapedQ, 0);
+        shapedPosition = 0;
+        symbols += SYMBOL_BLOCK;
+    }
+}
\ No newline at end of file
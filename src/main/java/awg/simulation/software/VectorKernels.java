@@ -0,0 +1,184 @@
+package awg.simulation.software;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/// Only loaded through SampleKernels.preferred() once jdk.incubator.vector is known to be present
+class VectorKernels implements SampleKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    /// Adding and subtracting 1.5 * 2^52 rounds any |x| < 2^51 to the nearest integer
+    private static final double ROUND_MAGIC = 6755399441055744.0;
+    private static final double INV_TWO_PI = 1 / (2 * Math.PI);
+    private static final double TWO_PI_HI = 6.283185307179586;
+    private static final double TWO_PI_LO = 2.4492935982947064E-16;
+    private static final DoubleVector NEG_TWO_PI_HI = DoubleVector.broadcast(SPECIES, -TWO_PI_HI);
+    private static final double HALF_PI = Math.PI / 2;
+    /// Taylor coefficients of sin(x) / x in x^2, truncation error < 6.1e-12 on [-pi/2, pi/2]
+    private static final double S1 = -1.0 / 6;
+    private static final double S2 = 1.0 / 120;
+    private static final double S3 = -1.0 / 5040;
+    private static final double S4 = 1.0 / 362880;
+    private static final double S5 = -1.0 / 39916800;
+    private static final double S6 = 1.0 / 6227020800.0;
+    private static final double S7 = -1.0 / 1307674368000.0;
+
+    private final double[] lanes = new double[SPECIES.length()];
+
+    VectorKernels() {
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = i;
+        }
+    }
+
+    @Override
+    public void ramp(double[] out, int length, double start, double increment) {
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        DoubleVector lane = DoubleVector.fromArray(SPECIES, lanes, 0);
+        int i = 0;
+        for (; i < bound; i += step) {
+            lane.add(i).mul(increment).add(start).intoArray(out, i);
+        }
+        for (; i < length; i++) {
+            out[i] = start + i * increment;
+        }
+    }
+
+    @Override
+    public void sine(double[] in, double[] out, int length) {
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += step) {
+            sine(DoubleVector.fromArray(SPECIES, in, i)).intoArray(out, i);
+        }
+        for (; i < length; i++) {
+            out[i] = sine(in[i]);
+        }
+    }
+
+    @Override
+    public void combine(double[] samples, double[] other, int length, double a, double b) {
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += step) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, samples, i).mul(a);
+            x.add(DoubleVector.fromArray(SPECIES, other, i).mul(b)).intoArray(samples, i);
+        }
+        for (; i < length; i++) {
+            samples[i] = a * samples[i] + b * other[i];
+        }
+    }
+
+    @Override
+    public void scaleRamp(double[] samples, int length, double start, double increment) {
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        DoubleVector lane = DoubleVector.fromArray(SPECIES, lanes, 0);
+        int i = 0;
+        for (; i < bound; i += step) {
+            DoubleVector scale = lane.add(i).mul(increment).add(start);
+            DoubleVector.fromArray(SPECIES, samples, i).mul(scale).intoArray(samples, i);
+        }
+        for (; i < length; i++) {
+            samples[i] *= start + i * increment;
+        }
+    }
+
+    @Override
+    public void offset(double[] samples, int length, double offset) {
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += step) {
+            DoubleVector.fromArray(SPECIES, samples, i).add(offset).intoArray(samples, i);
+        }
+        for (; i < length; i++) {
+            samples[i] += offset;
+        }
+    }
+
+    @Override
+    public void quantize(double[] samples, int length, double step) {
+        int width = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += width) {
+            DoubleVector scaled = DoubleVector.fromArray(SPECIES, samples, i).div(step).add(0.5);
+            /// floor(x + 0.5) reproduces Math.round, including its behaviour at exact ties
+            DoubleVector rounded = scaled.add(ROUND_MAGIC).sub(ROUND_MAGIC);
+            rounded = rounded.sub(1, rounded.compare(VectorOperators.GT, scaled));
+            rounded.mul(step).max(-1).min(1).intoArray(samples, i);
+        }
+        for (; i < length; i++) {
+            samples[i] = Math.max(-1, Math.min(1, Math.round(samples[i] / step) * step));
+        }
+    }
+
+    @Override
+    public void amModulate(double[] samples, double[] carrier, double[] out, int length, double modIndex) {
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += step) {
+            DoubleVector factor = DoubleVector.fromArray(SPECIES, carrier, i).mul(modIndex).add(1);
+            DoubleVector.fromArray(SPECIES, samples, i).mul(factor).intoArray(out, i);
+        }
+        for (; i < length; i++) {
+            out[i] = samples[i] * (1 + modIndex * carrier[i]);
+        }
+    }
+
+    @Override
+    public void addClip(double[] samples, double[] noise, int length) {
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += step) {
+            DoubleVector sum = DoubleVector.fromArray(SPECIES, samples, i).add(DoubleVector.fromArray(SPECIES, noise, i));
+            sum.max(-1).min(1).intoArray(samples, i);
+        }
+        for (; i < length; i++) {
+            samples[i] = Math.max(-1, Math.min(1, samples[i] + noise[i]));
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector/" + SPECIES.vectorBitSize() + "-bit";
+    }
+
+    private static DoubleVector sine(DoubleVector x) {
+        DoubleVector k = x.mul(INV_TWO_PI).add(ROUND_MAGIC).sub(ROUND_MAGIC);
+        DoubleVector r = k.fma(NEG_TWO_PI_HI, x).sub(k.mul(TWO_PI_LO));
+        /// Fold [-pi, pi] onto [-pi/2, pi/2] using sin(pi - r) = sin(r)
+        VectorMask<Double> above = r.compare(VectorOperators.GT, HALF_PI);
+        VectorMask<Double> below = r.compare(VectorOperators.LT, -HALF_PI);
+        r = r.blend(r.neg().add(Math.PI), above).blend(r.neg().sub(Math.PI), below);
+        DoubleVector r2 = r.mul(r);
+        DoubleVector p = r2.mul(S7).add(S6);
+        p = p.mul(r2).add(S5);
+        p = p.mul(r2).add(S4);
+        p = p.mul(r2).add(S3);
+        p = p.mul(r2).add(S2);
+        p = p.mul(r2).add(S1);
+        return p.mul(r2).mul(r).add(r);
+    }
+
+    /// Scalar twin of the vector polynomial, used for loop tails so every lane agrees
+    static double sine(double x) {
+        double k = x * INV_TWO_PI + ROUND_MAGIC - ROUND_MAGIC;
+        double r = Math.fma(k, -TWO_PI_HI, x) - k * TWO_PI_LO;
+        if (r > HALF_PI) {
+            r = Math.PI - r;
+        } else if (r < -HALF_PI) {
+            r = -Math.PI - r;
+        }
+        double r2 = r * r;
+        double p = ((((((S7 * r2 + S6) * r2 + S5) * r2 + S4) * r2 + S3) * r2 + S2) * r2 + S1);
+        return p * r2 * r + r;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,202 @@
+package awg.simulation.software;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/// Content-addressed LRU cache of rendered records. Keys are a SHA-256 over every WaveformData field, the
+/// waveform and modulation types and the custom point content, so toggling back to an earlier setting is a hit.
+/// Cached buffers are shared: callers must treat them as read-only.
+public class WaveformCache {
+    public static final long DEFAULT_BUDGET_BYTES = 256L << 20;
+
+    private final long budgetBytes;
+    /// Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<Key, SampleBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+    private long hits;
+    private long misses;
+
+    public WaveformCache() {
+        this(DEFAULT_BUDGET_BYTES);
+    }
+
+    public WaveformCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /// Stochastic settings are only reproducible, and therefore cacheable, with a fixed seed
+    public static boolean isCacheable(WaveformData data) {
+        boolean stochastic = (hasRandomNoise(data) && data.getNoiseAmplitude() > 0) || hasRandomCarrier(data);
+        return !stochastic || data.isFixedSeed();
+    }
+
+    /// Jitter, phase noise and quantization noise all draw from the carrier's random stream
+    static boolean hasRandomCarrier(WaveformData data) {
+        return data.getJitterAmount() > 0 || data.getPhaseNoise() > 0
+                || PhaseNoiseMask.isActive(data.getPhaseNoiseMask())
+                || (data.isQuantizationNoise() && Quantizer.forResolution(data.getResolution()).getBits() < 14);
+    }
+
+    /// Every noise type except the replayed custom points, whatever the amplitude
+    static boolean hasRandomNoise(WaveformData data) {
+        String noiseType = data.getNoiseType();
+        return noiseType != null && !noiseType.equals("None") && !noiseType.equals("Custom");
+    }
+
+    public static Key keyFor(String type, String modulationType, WaveformData data,
+                             CustomWaveform customPoints, CustomWaveform customNoise, CustomWaveform spectralProfile) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+            out.writeUTF(String.valueOf(type));
+            out.writeUTF(String.valueOf(modulationType));
+            out.writeDouble(data.getSamplingRate());
+            out.writeInt(data.getSamples());
+            out.writeDouble(data.getDuration());
+            out.writeUTF(data.getResolution());
+            out.writeDouble(data.getAmplitude());
+            out.writeDouble(data.getFrequency());
+            out.writeDouble(data.getPhase());
+            out.writeDouble(data.getHarmonic1Amp());
+            out.writeDouble(data.getHarmonic1Freq());
+            out.writeDouble(data.getCarrierFreq());
+            out.writeDouble(data.getModIndex());
+            out.writeBoolean(data.isIqSignal());
+            out.writeUTF(String.valueOf(data.getSelectedChannel()));
+            out.writeDouble(data.getPhaseOffset());
+            out.writeBoolean(data.isSyncChannels());
+            out.writeUTF(String.valueOf(data.getNoiseType()));
+            out.writeDouble(data.getNoiseAmplitude());
+            out.writeDouble(data.getJitterAmount());
+            out.writeDouble(data.getDriftRate());
+            out.writeBoolean(data.isQuantizationNoise());
+            out.writeDouble(data.getDcOffset());
+            out.writeDouble(data.getDutyCycle());
+            out.writeBoolean(data.isBurstMode());
+            out.writeInt(data.getBurstCycles());
+            out.writeDouble(data.getBurstPeriod());
+            out.writeBoolean(data.isFrequencySweep());
+            out.writeUTF(String.valueOf(data.getSweepType()));
+            out.writeDouble(data.getStartFreq());
+            out.writeDouble(data.getStopFreq());
+            out.writeDouble(data.getSweepDuration());
+            out.writeDouble(data.getPhaseNoise());
+            out.writeBoolean(data.isDdsMode());
+            out.writeBoolean(data.isParallelGeneration());
+            out.writeLong(data.getSeed());
+            out.writeBoolean(data.isFixedSeed());
+            out.writeBoolean(data.isVectorBackend());
+            out.writeUTF(data.getSamplePrecision());
+            out.writeUTF(String.valueOf(data.getPhaseNoiseMask()));
+            out.writeUTF(String.valueOf(data.getConstellation()));
+            out.writeDouble(data.getSymbolRate());
+            out.writeUTF(String.valueOf(data.getBitSource()));
+            out.writeUTF(String.valueOf(data.getBitFile()));
+            /// The bit file is read at render time, so a rewritten file must miss the cache
+            if ("Digital".equals(modulationType) && "File".equals(data.getBitSource())) {
+                File bitFile = new File(data.getBitFile());
+                out.writeLong(bitFile.lastModified());
+                out.writeLong(bitFile.length());
+            }
+            if ("Custom".equals(type)) {
+                customPoints.writeContent(out);
+            }
+            if ("Custom".equals(data.getNoiseType())) {
+                customNoise.writeContent(out);
+            }
+            if ("Spectral".equals(data.getNoiseType())) {
+                spectralProfile.writeContent(out);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return new Key(digest.digest());
+    }
+
+    public synchronized SampleBuffer get(Key key) {
+        SampleBuffer buffer = entries.get(key);
+        if (buffer != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return buffer;
+    }
+
+    /// Records larger than the whole budget are not cached
+    public synchronized void put(Key key, SampleBuffer buffer) {
+        long size = buffer.sizeInBytes();
+        if (size > budgetBytes) {
+            return;
+        }
+        SampleBuffer previous = entries.put(key, buffer);
+        if (previous != null) {
+            sizeBytes -= previous.sizeInBytes();
+        }
+        sizeBytes += size;
+        Iterator<Map.Entry<Key, SampleBuffer>> eldest = entries.entrySet().iterator();
+        while (sizeBytes > budgetBytes) {
+            Map.Entry<Key, SampleBuffer> entry = eldest.next();
+            sizeBytes -= entry.getValue().sizeInBytes();
+            eldest.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public static final class Key {
+        private final byte[] digest;
+        private final int hash;
+
+        private Key(byte[] digest) {
+            this.digest = digest;
+            this.hash = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(digest, ((Key) o).digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
\ No newline at end of file
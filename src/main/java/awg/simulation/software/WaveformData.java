@@ -1,6 +1,12 @@
 package awg.simulation.software;
 
-public class WaveformData {
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class WaveformData implements Cloneable {
+    /// Revision stamps are unique across instances, so equal stamps mean the same settings
+    private static final AtomicLong REVISION_STAMPS = new AtomicLong();
+
     private double samplingRate = 1000000;
     private int samples = 1000;
     private double duration = 0.001;
@@ -32,6 +38,241 @@ public class WaveformData {
     private double stopFreq = 2000;
     private double sweepDuration = 0.001;
     private double phaseNoise = 0;
+    private boolean ddsMode = false;
+    private boolean parallelGeneration = false;
+    private long seed = 0;
+    private boolean fixedSeed = false;
+    private boolean vectorBackend = false;
+    private String samplePrecision = "Float64";
+    /// Phase-noise offset mask, "offset Hz:dBc/Hz" pairs (see PhaseNoiseMask); blank for none
+    private String phaseNoiseMask = "";
+    /// Digital modulation: constellation name (see Constellation), symbol rate in Hz, "PRBS7" to "PRBS31" or
+    /// "File", and the bit file read when the source is "File"
+    private String constellation = "QPSK";
+    private double symbolRate = 100000;
+    private String bitSource = "PRBS9";
+    private String bitFile = "";
+    /// Per-stage revision stamps, renewed by the setters below (see RenderStage)
+    private long[] revisions = newRevisions();
+
+    public WaveformData() {
+    }
+
+    /// Settings from a snapshot; the copy counts as new settings for revision tracking
+    public WaveformData(WaveformSnapshot snapshot) {
+        this.samplingRate = snapshot.samplingRate();
+        this.samples = snapshot.samples();
+        this.duration = snapshot.duration();
+        this.resolution = snapshot.resolution();
+        this.amplitude = snapshot.amplitude();
+        this.frequency = snapshot.frequency();
+        this.phase = snapshot.phase();
+        this.harmonic1Amp = snapshot.harmonic1Amp();
+        this.harmonic1Freq = snapshot.harmonic1Freq();
+        this.carrierFreq = snapshot.carrierFreq();
+        this.modIndex = snapshot.modIndex();
+        this.iqSignal = snapshot.iqSignal();
+        this.selectedChannel = snapshot.selectedChannel();
+        this.phaseOffset = snapshot.phaseOffset();
+        this.syncChannels = snapshot.syncChannels();
+        this.noiseType = snapshot.noiseType();
+        this.noiseAmplitude = snapshot.noiseAmplitude();
+        this.jitterAmount = snapshot.jitterAmount();
+        this.driftRate = snapshot.driftRate();
+        this.quantizationNoise = snapshot.quantizationNoise();
+        this.dcOffset = snapshot.dcOffset();
+        this.dutyCycle = snapshot.dutyCycle();
+        this.burstMode = snapshot.burstMode();
+        this.burstCycles = snapshot.burstCycles();
+        this.burstPeriod = snapshot.burstPeriod();
+        this.frequencySweep = snapshot.frequencySweep();
+        this.sweepType = snapshot.sweepType();
+        this.startFreq = snapshot.startFreq();
+        this.stopFreq = snapshot.stopFreq();
+        this.sweepDuration = snapshot.sweepDuration();
+        this.phaseNoise = snapshot.phaseNoise();
+        this.ddsMode = snapshot.ddsMode();
+        this.parallelGeneration = snapshot.parallelGeneration();
+        this.seed = snapshot.seed();
+        this.fixedSeed = snapshot.fixedSeed();
+        this.vectorBackend = snapshot.vectorBackend();
+        this.samplePrecision = snapshot.samplePrecision();
+        this.phaseNoiseMask = snapshot.phaseNoiseMask();
+        this.constellation = snapshot.constellation();
+        this.symbolRate = snapshot.symbolRate();
+        this.bitSource = snapshot.bitSource();
+        this.bitFile = snapshot.bitFile();
+    }
+
+    /// Immutable copy of the current settings plus the render inputs held outside WaveformData
+    public WaveformSnapshot snapshot(String type, String modulationType, CustomWaveform customPoints, CustomWaveform customNoise,
+                                     CustomWaveform spectralProfile) {
+        return new WaveformSnapshot(type, modulationType, samplingRate, samples, duration, resolution, amplitude, frequency, phase, harmonic1Amp,
+                harmonic1Freq, carrierFreq, modIndex, iqSignal, selectedChannel, phaseOffset, syncChannels, noiseType,
+                noiseAmplitude, jitterAmount, driftRate, quantizationNoise, dcOffset, dutyCycle, burstMode, burstCycles,
+                burstPeriod, frequencySweep, sweepType, startFreq, stopFreq, sweepDuration, phaseNoise, ddsMode,
+                parallelGeneration, seed, fixedSeed, vectorBackend, samplePrecision, phaseNoiseMask, constellation, symbolRate,
+                bitSource, bitFile, customPoints, customNoise, spectralProfile);
+    }
+
+    /// Brings these settings to the snapshot's through the setters, calling only those whose value differs, so
+    /// the revision stamps mark exactly the stages the difference affects
+    public void apply(WaveformSnapshot snapshot) {
+        if (Double.compare(samplingRate, snapshot.samplingRate()) != 0) {
+            setSamplingRate(snapshot.samplingRate());
+        }
+        if (samples != snapshot.samples()) {
+            setSamples(snapshot.samples());
+        }
+        duration = snapshot.duration();
+        if (!Objects.equals(resolution, snapshot.resolution())) {
+            setResolution(snapshot.resolution());
+        }
+        if (Double.compare(amplitude, snapshot.amplitude()) != 0) {
+            setAmplitude(snapshot.amplitude());
+        }
+        if (Double.compare(frequency, snapshot.frequency()) != 0) {
+            setFrequency(snapshot.frequency());
+        }
+        if (Double.compare(phase, snapshot.phase()) != 0) {
+            setPhase(snapshot.phase());
+        }
+        if (Double.compare(harmonic1Amp, snapshot.harmonic1Amp()) != 0) {
+            setHarmonic1Amp(snapshot.harmonic1Amp());
+        }
+        if (Double.compare(harmonic1Freq, snapshot.harmonic1Freq()) != 0) {
+            setHarmonic1Freq(snapshot.harmonic1Freq());
+        }
+        if (Double.compare(carrierFreq, snapshot.carrierFreq()) != 0) {
+            setCarrierFreq(snapshot.carrierFreq());
+        }
+        if (Double.compare(modIndex, snapshot.modIndex()) != 0) {
+            setModIndex(snapshot.modIndex());
+        }
+        if (iqSignal != snapshot.iqSignal()) {
+            setIqSignal(snapshot.iqSignal());
+        }
+        if (!Objects.equals(selectedChannel, snapshot.selectedChannel())) {
+            setSelectedChannel(snapshot.selectedChannel());
+        }
+        if (Double.compare(phaseOffset, snapshot.phaseOffset()) != 0) {
+            setPhaseOffset(snapshot.phaseOffset());
+        }
+        if (syncChannels != snapshot.syncChannels()) {
+            setSyncChannels(snapshot.syncChannels());
+        }
+        if (!Objects.equals(noiseType, snapshot.noiseType())) {
+            setNoiseType(snapshot.noiseType());
+        }
+        if (Double.compare(noiseAmplitude, snapshot.noiseAmplitude()) != 0) {
+            setNoiseAmplitude(snapshot.noiseAmplitude());
+        }
+        if (Double.compare(jitterAmount, snapshot.jitterAmount()) != 0) {
+            setJitterAmount(snapshot.jitterAmount());
+        }
+        if (Double.compare(driftRate, snapshot.driftRate()) != 0) {
+            setDriftRate(snapshot.driftRate());
+        }
+        if (quantizationNoise != snapshot.quantizationNoise()) {
+            setQuantizationNoise(snapshot.quantizationNoise());
+        }
+        if (Double.compare(dcOffset, snapshot.dcOffset()) != 0) {
+            setDcOffset(snapshot.dcOffset());
+        }
+        if (Double.compare(dutyCycle, snapshot.dutyCycle()) != 0) {
+            setDutyCycle(snapshot.dutyCycle());
+        }
+        if (burstMode != snapshot.burstMode()) {
+            setBurstMode(snapshot.burstMode());
+        }
+        if (burstCycles != snapshot.burstCycles()) {
+            setBurstCycles(snapshot.burstCycles());
+        }
+        if (Double.compare(burstPeriod, snapshot.burstPeriod()) != 0) {
+            setBurstPeriod(snapshot.burstPeriod());
+        }
+        if (frequencySweep != snapshot.frequencySweep()) {
+            setFrequencySweep(snapshot.frequencySweep());
+        }
+        if (!Objects.equals(sweepType, snapshot.sweepType())) {
+            setSweepType(snapshot.sweepType());
+        }
+        if (Double.compare(startFreq, snapshot.startFreq()) != 0) {
+            setStartFreq(snapshot.startFreq());
+        }
+        if (Double.compare(stopFreq, snapshot.stopFreq()) != 0) {
+            setStopFreq(snapshot.stopFreq());
+        }
+        if (Double.compare(sweepDuration, snapshot.sweepDuration()) != 0) {
+            setSweepDuration(snapshot.sweepDuration());
+        }
+        if (Double.compare(phaseNoise, snapshot.phaseNoise()) != 0) {
+            setPhaseNoise(snapshot.phaseNoise());
+        }
+        if (ddsMode != snapshot.ddsMode()) {
+            setDdsMode(snapshot.ddsMode());
+        }
+        if (parallelGeneration != snapshot.parallelGeneration()) {
+            setParallelGeneration(snapshot.parallelGeneration());
+        }
+        if (seed != snapshot.seed()) {
+            setSeed(snapshot.seed());
+        }
+        if (fixedSeed != snapshot.fixedSeed()) {
+            setFixedSeed(snapshot.fixedSeed());
+        }
+        if (vectorBackend != snapshot.vectorBackend()) {
+            setVectorBackend(snapshot.vectorBackend());
+        }
+        if (!Objects.equals(samplePrecision, snapshot.samplePrecision())) {
+            setSamplePrecision(snapshot.samplePrecision());
+        }
+        if (!Objects.equals(phaseNoiseMask, snapshot.phaseNoiseMask())) {
+            setPhaseNoiseMask(snapshot.phaseNoiseMask());
+        }
+        if (!Objects.equals(constellation, snapshot.constellation())) {
+            setConstellation(snapshot.constellation());
+        }
+        if (Double.compare(symbolRate, snapshot.symbolRate()) != 0) {
+            setSymbolRate(snapshot.symbolRate());
+        }
+        if (!Objects.equals(bitSource, snapshot.bitSource())) {
+            setBitSource(snapshot.bitSource());
+        }
+        if (!Objects.equals(bitFile, snapshot.bitFile())) {
+            setBitFile(snapshot.bitFile());
+        }
+    }
+
+    /// Detached copy for rendering off the FX thread. It keeps the revision stamps, so renderers treat it as
+    /// the same settings as the original.
+    public WaveformData copy() {
+        try {
+            WaveformData copy = (WaveformData) super.clone();
+            copy.revisions = revisions.clone();
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    public long getRevision(RenderStage stage) {
+        return revisions[stage.ordinal()];
+    }
+
+    private static long[] newRevisions() {
+        long[] stamps = new long[RenderStage.values().length];
+        for (int i = 0; i < stamps.length; i++) {
+            stamps[i] = REVISION_STAMPS.incrementAndGet();
+        }
+        return stamps;
+    }
+
+    private void touch(RenderStage... stages) {
+        for (RenderStage stage : stages) {
+            revisions[stage.ordinal()] = REVISION_STAMPS.incrementAndGet();
+        }
+    }
 
     public double getSamplingRate() {
         return samplingRate;
@@ -39,6 +280,7 @@ public class WaveformData {
 
     public void setSamplingRate(double samplingRate) {
         this.samplingRate = samplingRate;
+        touch(RenderStage.CARRIER, RenderStage.NOISE);
     }
 
     public int getSamples() {
@@ -48,6 +290,7 @@ public class WaveformData {
     public void setSamples(int samples) {
         this.samples = samples;
         this.duration = samples / samplingRate;
+        touch(RenderStage.CARRIER, RenderStage.NOISE);
     }
 
     public double getDuration() {
@@ -60,6 +303,7 @@ public class WaveformData {
 
     public void setResolution(String resolution) {
         this.resolution = resolution;
+        touch(RenderStage.FINISH);
     }
 
     public double getAmplitude() {
@@ -68,6 +312,7 @@ public class WaveformData {
 
     public void setAmplitude(double amplitude) {
         this.amplitude = amplitude;
+        touch(RenderStage.MIX);
     }
 
     public double getFrequency() {
@@ -76,6 +321,7 @@ public class WaveformData {
 
     public void setFrequency(double frequency) {
         this.frequency = frequency;
+        touch(RenderStage.CARRIER);
     }
 
     public double getPhase() {
@@ -84,6 +330,7 @@ public class WaveformData {
 
     public void setPhase(double phase) {
         this.phase = phase;
+        touch(RenderStage.CARRIER);
     }
 
     public double getHarmonic1Amp() {
@@ -92,6 +339,7 @@ public class WaveformData {
 
     public void setHarmonic1Amp(double harmonic1Amp) {
         this.harmonic1Amp = harmonic1Amp;
+        touch(RenderStage.MIX);
     }
 
     public double getHarmonic1Freq() {
@@ -100,6 +348,7 @@ public class WaveformData {
 
     public void setHarmonic1Freq(double harmonic1Freq) {
         this.harmonic1Freq = harmonic1Freq;
+        touch(RenderStage.CARRIER);
     }
 
     public double getCarrierFreq() {
@@ -108,6 +357,7 @@ public class WaveformData {
 
     public void setCarrierFreq(double carrierFreq) {
         this.carrierFreq = carrierFreq;
+        touch(RenderStage.MODULATION);
     }
 
     public double getModIndex() {
@@ -116,6 +366,7 @@ public class WaveformData {
 
     public void setModIndex(double modIndex) {
         this.modIndex = modIndex;
+        touch(RenderStage.MODULATION);
     }
 
     public boolean isIqSignal() {
@@ -124,6 +375,7 @@ public class WaveformData {
 
     public void setIqSignal(boolean iqSignal) {
         this.iqSignal = iqSignal;
+        touch(RenderStage.MODULATION);
     }
 
     public String getSelectedChannel() {
@@ -140,6 +392,7 @@ public class WaveformData {
 
     public void setPhaseOffset(double phaseOffset) {
         this.phaseOffset = phaseOffset;
+        touch(RenderStage.CARRIER);
     }
 
     public boolean isSyncChannels() {
@@ -148,6 +401,7 @@ public class WaveformData {
 
     public void setSyncChannels(boolean syncChannels) {
         this.syncChannels = syncChannels;
+        touch(RenderStage.CARRIER);
     }
 
     public String getNoiseType() {
@@ -156,6 +410,7 @@ public class WaveformData {
 
     public void setNoiseType(String noiseType) {
         this.noiseType = noiseType;
+        touch(RenderStage.NOISE);
     }
 
     public double getNoiseAmplitude() {
@@ -164,6 +419,7 @@ public class WaveformData {
 
     public void setNoiseAmplitude(double noiseAmplitude) {
         this.noiseAmplitude = noiseAmplitude;
+        touch(RenderStage.OUTPUT);
     }
 
     public double getJitterAmount() {
@@ -172,6 +428,7 @@ public class WaveformData {
 
     public void setJitterAmount(double jitterAmount) {
         this.jitterAmount = jitterAmount;
+        touch(RenderStage.CARRIER);
     }
 
     public double getDriftRate() {
@@ -180,6 +437,7 @@ public class WaveformData {
 
     public void setDriftRate(double driftRate) {
         this.driftRate = driftRate;
+        touch(RenderStage.MIX);
     }
 
     public boolean isQuantizationNoise() {
@@ -188,6 +446,7 @@ public class WaveformData {
 
     public void setQuantizationNoise(boolean quantizationNoise) {
         this.quantizationNoise = quantizationNoise;
+        touch(RenderStage.FINISH);
     }
 
     public double getDcOffset() {
@@ -196,6 +455,7 @@ public class WaveformData {
 
     public void setDcOffset(double dcOffset) {
         this.dcOffset = dcOffset;
+        touch(RenderStage.FINISH);
     }
 
     public double getDutyCycle() {
@@ -204,6 +464,7 @@ public class WaveformData {
 
     public void setDutyCycle(double dutyCycle) {
         this.dutyCycle = dutyCycle;
+        touch(RenderStage.CARRIER);
     }
 
     public boolean isBurstMode() {
@@ -212,6 +473,7 @@ public class WaveformData {
 
     public void setBurstMode(boolean burstMode) {
         this.burstMode = burstMode;
+        touch(RenderStage.FINISH);
     }
 
     public int getBurstCycles() {
@@ -220,6 +482,7 @@ public class WaveformData {
 
     public void setBurstCycles(int burstCycles) {
         this.burstCycles = burstCycles;
+        touch(RenderStage.FINISH);
     }
 
     public double getBurstPeriod() {
@@ -228,6 +491,7 @@ public class WaveformData {
 
     public void setBurstPeriod(double burstPeriod) {
         this.burstPeriod = burstPeriod;
+        touch(RenderStage.FINISH);
     }
 
     public boolean isFrequencySweep() {
@@ -236,6 +500,7 @@ public class WaveformData {
 
     public void setFrequencySweep(boolean frequencySweep) {
         this.frequencySweep = frequencySweep;
+        touch(RenderStage.CARRIER);
     }
 
     public String getSweepType() {
@@ -244,6 +509,7 @@ public class WaveformData {
 
     public void setSweepType(String sweepType) {
         this.sweepType = sweepType;
+        touch(RenderStage.CARRIER);
     }
 
     public double getStartFreq() {
@@ -252,6 +518,7 @@ public class WaveformData {
 
     public void setStartFreq(double startFreq) {
         this.startFreq = startFreq;
+        touch(RenderStage.CARRIER);
     }
 
     public double getStopFreq() {
@@ -260,6 +527,7 @@ public class WaveformData {
 
     public void setStopFreq(double stopFreq) {
         this.stopFreq = stopFreq;
+        touch(RenderStage.CARRIER);
     }
 
     public double getSweepDuration() {
@@ -268,6 +536,7 @@ public class WaveformData {
 
     public void setSweepDuration(double sweepDuration) {
         this.sweepDuration = sweepDuration;
+        touch(RenderStage.CARRIER);
     }
 
     public double getPhaseNoise() {
@@ -276,5 +545,104 @@ public class WaveformData {
 
     public void setPhaseNoise(double phaseNoise) {
         this.phaseNoise = phaseNoise;
+        touch(RenderStage.CARRIER);
+    }
+
+    public boolean isDdsMode() {
+        return ddsMode;
+    }
+
+    public void setDdsMode(boolean ddsMode) {
+        this.ddsMode = ddsMode;
+        touch(RenderStage.CARRIER);
+    }
+
+    public boolean isParallelGeneration() {
+        return parallelGeneration;
+    }
+
+    public void setParallelGeneration(boolean parallelGeneration) {
+        this.parallelGeneration = parallelGeneration;
+        touch(RenderStage.CARRIER);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+        touch(RenderStage.CARRIER, RenderStage.NOISE);
+    }
+
+    public boolean isFixedSeed() {
+        return fixedSeed;
+    }
+
+    public void setFixedSeed(boolean fixedSeed) {
+        this.fixedSeed = fixedSeed;
+        touch(RenderStage.CARRIER, RenderStage.NOISE);
+    }
+
+    public boolean isVectorBackend() {
+        return vectorBackend;
+    }
+
+    public void setVectorBackend(boolean vectorBackend) {
+        this.vectorBackend = vectorBackend;
+        touch(RenderStage.MODULATION, RenderStage.OUTPUT);
+    }
+
+    public String getSamplePrecision() {
+        return samplePrecision;
+    }
+
+    public void setSamplePrecision(String samplePrecision) {
+        this.samplePrecision = samplePrecision;
+    }
+
+    public String getPhaseNoiseMask() {
+        return phaseNoiseMask;
+    }
+
+    public void setPhaseNoiseMask(String phaseNoiseMask) {
+        this.phaseNoiseMask = phaseNoiseMask;
+        touch(RenderStage.CARRIER);
+    }
+
+    public String getConstellation() {
+        return constellation;
+    }
+
+    public void setConstellation(String constellation) {
+        this.constellation = constellation;
+        touch(RenderStage.MODULATION);
+    }
+
+    public double getSymbolRate() {
+        return symbolRate;
+    }
+
+    public void setSymbolRate(double symbolRate) {
+        this.symbolRate = symbolRate;
+        touch(RenderStage.MODULATION);
+    }
+
+    public String getBitSource() {
+        return bitSource;
+    }
+
+    public void setBitSource(String bitSource) {
+        this.bitSource = bitSource;
+        touch(RenderStage.MODULATION);
+    }
+
+    public String getBitFile() {
+        return bitFile;
+    }
+
+    public void setBitFile(String bitFile) {
+        this.bitFile = bitFile;
+        touch(RenderStage.MODULATION);
     }
 }
\ No newline at end of file
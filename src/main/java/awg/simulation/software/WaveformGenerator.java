@@ -3,124 +3,312 @@ package awg.simulation.software;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public class WaveformGenerator {
-    private List<double[]> customPoints = new ArrayList<>();
-    private double[] waveform;
+    private static final int KERNEL_BLOCK_SIZE = 4096;
+    private static final int DDS_SINE = 0;
+    private static final int DDS_SQUARE = 1;
+    private static final int DDS_TRIANGLE = 2;
+    private static final int DDS_SAWTOOTH = 3;
+    private CustomWaveform customWaveform = new CustomWaveform();
     private WaveformData waveformData;
-    private Random random = new Random();
+    private RandomGenerator random = RandomSource.create();
+    private final DdsOscillator carrier = new DdsOscillator();
+    private final DdsOscillator harmonic = new DdsOscillator();
+    private long ddsNextSampleIndex = -1;
+    /// Phase process of the current phase-noise mask, kept so consecutive blocks continue it
+    private PhaseNoiseMask phaseNoiseMask;
+    private double[] maskBlock;
+    private double[] kernelBlock;
+    private double[] kernelScratch;
+
+    public WaveformGenerator() {
+    }
+
+    /// Worker generator that reads the template's custom points and draws from its own random stream
+    WaveformGenerator(WaveformGenerator template, RandomGenerator random) {
+        this(template.customWaveform, random);
+    }
+
+    WaveformGenerator(CustomWaveform customWaveform, RandomGenerator random) {
+        this.customWaveform = customWaveform;
+        this.random = random;
+    }
+
+    /// Worker that takes its mask phase from a rendered PhaseNoiseMask shared with the other workers
+    WaveformGenerator(WaveformGenerator template, RandomGenerator random, PhaseNoiseMask phaseNoiseMask) {
+        this(template, random);
+        this.phaseNoiseMask = phaseNoiseMask;
+    }
+
+    /// Reentrant entry point: every call runs on its own worker, so threads may share the snapshot freely
+    /// as long as each passes its own random stream
+    public static double[] generate(WaveformSnapshot snapshot, RandomGenerator random) {
+        double[] buffer = new double[snapshot.samples()];
+        generate(snapshot, random, buffer, 0, buffer.length, 0);
+        return buffer;
+    }
+
+    public static void generate(WaveformSnapshot snapshot, RandomGenerator random,
+                                double[] buffer, int offset, int length, long startSampleIndex) {
+        new WaveformGenerator(snapshot.customPoints(), random)
+                .generateInto(snapshot.type(), snapshot.toData(), buffer, offset, length, startSampleIndex);
+    }
 
     public double[] generateWaveform(String type, WaveformData data) {
+        double[] waveform = new double[data.getSamples()];
+        generateInto(type, data, waveform, 0);
+        return waveform;
+    }
+
+    public void generateInto(String type, WaveformData data, double[] buffer, long startSampleIndex) {
+        generateInto(type, data, buffer, 0, buffer.length, startSampleIndex);
+    }
+
+    /// Fills buffer[offset, offset + length) with samples startSampleIndex onward.
+    /// Consecutive calls continue the oscillator phase exactly; any other start index is sought to.
+    public void generateInto(String type, WaveformData data, double[] buffer, int offset, int length, long startSampleIndex) {
+        if (!data.isDdsMode()) {
+            /// Strictly periodic settings: synthesize one period and fill the rest with bulk copies
+            int period = Periodicity.recordPeriod(type, data, length);
+            if (period > 0) {
+                synthesize(type, data, buffer, offset, period, startSampleIndex);
+                Periodicity.tile(buffer, offset, period, length);
+                return;
+            }
+        }
+        synthesize(type, data, buffer, offset, length, startSampleIndex);
+    }
+
+    private void synthesize(String type, WaveformData data, double[] buffer, int offset, int length, long startSampleIndex) {
+        if (data.isDdsMode() && !type.equals("Custom")) {
+            generateDds(type, data, buffer, offset, length, startSampleIndex);
+            return;
+        }
+        if (data.isVectorBackend() && isVectorizable(type, data)) {
+            generateVectorized(data, buffer, offset, length, startSampleIndex);
+            return;
+        }
+        this.waveformData = data;
+        WaveformPipeline.compile(type, data, customWaveform, random, phaseNoiseMask(data)).process(buffer, offset, length, startSampleIndex);
+    }
+
+    /// Direct digital synthesis path: integer phase accumulator plus interpolated sine table
+    private void generateDds(String type, WaveformData data, double[] buffer, int offset, int length, long startSampleIndex) {
         this.waveformData = data;
-        int samples = data.getSamples();
-        waveform = new double[samples];
+        double samplingRate = data.getSamplingRate();
         double baseFreq = data.getFrequency();
         double amplitude = data.getAmplitude();
         double phase = Math.toRadians(data.getPhase());
         double phaseOffset = Math.toRadians(data.getPhaseOffset());
         double harmonic1Amp = data.getHarmonic1Amp();
-        double harmonic1Freq = data.getHarmonic1Freq() * baseFreq;
-        boolean syncChannels = data.isSyncChannels();
+        double harmonicMultiplier = data.getHarmonic1Freq();
         double jitterAmount = data.getJitterAmount();
         double driftRate = data.getDriftRate();
         boolean quantizationNoise = data.isQuantizationNoise();
         double dcOffset = data.getDcOffset();
-        double dutyCycle = data.getDutyCycle() / 100.0;
         boolean burstMode = data.isBurstMode();
         int burstCycles = data.getBurstCycles();
         double burstPeriod = data.getBurstPeriod();
-        boolean frequencySweep = data.isFrequencySweep();
-        String sweepType = data.getSweepType();
+        boolean frequencySweep = data.isFrequencySweep() && data.getSweepDuration() > 0;
+        boolean logSweep = "Logarithmic".equals(data.getSweepType());
         double startFreq = Math.min(data.getStartFreq(), data.getStopFreq());
         double stopFreq = Math.max(data.getStartFreq(), data.getStopFreq());
         double sweepDuration = data.getSweepDuration();
         double phaseNoise = Math.toRadians(data.getPhaseNoise());
-        double totalPhase = syncChannels ? phase : phase + phaseOffset;
-
-        for (int i = 0; i < samples; i++) {
-            double t = (double) i / data.getSamplingRate();
-            /// Apply jitter (random time offset)
-            double jitter = jitterAmount > 0 ? random.nextGaussian() * jitterAmount : 0;
-            double jitteredT = Math.max(0, t + jitter);
-            /// Apply frequency sweep
+        double totalPhase = data.isSyncChannels() ? phase : phase + phaseOffset;
+        Quantizer quantizer = Quantizer.forResolution(data.getResolution());
+        int shape = ddsShape(type);
+        PhaseNoiseMask mask = phaseNoiseMask(data);
+        if (mask != null && maskBlock == null) {
+            maskBlock = new double[KERNEL_BLOCK_SIZE];
+        }
+
+        carrier.setFrequency(baseFreq, samplingRate);
+        carrier.setPhase(totalPhase);
+        carrier.setDutyCycle(data.getDutyCycle() / 100.0);
+        harmonic.setFrequency(baseFreq * harmonicMultiplier, samplingRate);
+        harmonic.setPhase(totalPhase);
+        if (startSampleIndex != ddsNextSampleIndex) {
+            if (frequencySweep) {
+                double cycles = sweepCycles(startSampleIndex, samplingRate, startFreq, stopFreq, sweepDuration, logSweep);
+                carrier.setPhaseAccumulator(DdsOscillator.toPhaseWord(cycles));
+                harmonic.setPhaseAccumulator(DdsOscillator.toPhaseWord(cycles * harmonicMultiplier));
+            } else {
+                carrier.seek(startSampleIndex);
+                harmonic.seek(startSampleIndex);
+            }
+        }
+        /// Cleared until the block completes, so a cancelled block forces a seek next time
+        ddsNextSampleIndex = -1;
+
+        for (int i = 0; i < length; i++) {
+            if (i % KERNEL_BLOCK_SIZE == 0) {
+                WaveformRenderService.checkCancelled();
+                /// The mask's phase process is produced a block at a time
+                if (mask != null) {
+                    mask.fill(random, maskBlock, 0, Math.min(KERNEL_BLOCK_SIZE, length - i), startSampleIndex + i);
+                }
+            }
+            double t = (double) (startSampleIndex + i) / samplingRate;
             double currentFreq = baseFreq;
-            if (frequencySweep && sweepDuration > 0) {
+            if (frequencySweep) {
                 double fraction = Math.min(t / sweepDuration, 1.0);
-                if ("Linear".equals(sweepType)) {
-                    currentFreq = startFreq + (stopFreq - startFreq) * fraction;
-                } else if ("Logarithmic".equals(sweepType)) {
-                    double logStart = Math.log10(startFreq);
-                    double logStop = Math.log10(stopFreq);
-                    currentFreq = Math.pow(10, logStart + (logStop - logStart) * fraction);
-                }
+                currentFreq = logSweep
+                        ? startFreq * Math.pow(stopFreq / startFreq, fraction)
+                        : startFreq + (stopFreq - startFreq) * fraction;
+                carrier.setFrequency(currentFreq, samplingRate);
+                harmonic.setFrequency(currentFreq * harmonicMultiplier, samplingRate);
             }
-            /// Apply phase noise
-            double phaseNoiseValue = phaseNoise > 0 ? random.nextGaussian() * phaseNoise : 0;
-            /// Apply drift (linear amplitude scaling)
-            double driftFactor = 1 + driftRate * t / 100; /// drift rate in %/s
-            double value = 0;
-            switch (type) {
-                case "Sine":
-                    value = Math.sin(2 * Math.PI * currentFreq * jitteredT + totalPhase + phaseNoiseValue);
-                    break;
-                case "Square":
-                    double squarePhase = 2 * Math.PI * currentFreq * jitteredT + totalPhase + phaseNoiseValue;
-                    value = (squarePhase % (2 * Math.PI)) < (2 * Math.PI * dutyCycle) ? 1 : -1;
-                    break;
-                case "Triangle":
-                    value = 2 * Math.abs(2 * (jitteredT * currentFreq - Math.floor(jitteredT * currentFreq + 0.5))) - 1;
+            /// Jitter and phase noise become per-sample phase word offsets instead of time offsets
+            double offsetCycles = 0;
+            if (jitterAmount > 0) {
+                offsetCycles += Ziggurat.next(random) * jitterAmount * currentFreq;
+            }
+            if (phaseNoise > 0) {
+                offsetCycles += Ziggurat.next(random) * phaseNoise / (2 * Math.PI);
+            }
+            if (mask != null) {
+                offsetCycles += maskBlock[i % KERNEL_BLOCK_SIZE] / (2 * Math.PI);
+            }
+            long offsetWord = offsetCycles != 0 ? DdsOscillator.toPhaseWord(offsetCycles) : 0;
+            double driftFactor = 1 + driftRate * t / 100;
+            double value;
+            switch (shape) {
+                case DDS_SQUARE:
+                    value = carrier.square(offsetWord);
                     break;
-                case "Sawtooth":
-                    double sawPhase = jitteredT * currentFreq - Math.floor(jitteredT * currentFreq);
-                    value = sawPhase < dutyCycle ? (sawPhase / dutyCycle) * 2 - 1 : -1 + (sawPhase - dutyCycle) / (1 - dutyCycle) * 2;
+                case DDS_TRIANGLE:
+                    value = carrier.triangle(offsetWord);
                     break;
-                case "Custom":
-                    value = evaluateCustom(t);
+                case DDS_SAWTOOTH:
+                    value = carrier.sawtooth(offsetWord);
                     break;
+                default:
+                    value = carrier.sine(offsetWord);
             }
-            /// Apply amplitude, harmonic, and drift
             value *= amplitude * driftFactor;
-            if (harmonic1Amp > 0 && !type.equals("Custom")) {
-                double harmonicFreq = harmonic1Freq * (currentFreq / baseFreq);
-                value += harmonic1Amp * Math.sin(2 * Math.PI * harmonicFreq * jitteredT + totalPhase + phaseNoiseValue) * driftFactor;
+            if (harmonic1Amp > 0) {
+                value += harmonic1Amp * harmonic.sine(offsetWord) * driftFactor;
             }
-            /// Apply DC offset
             value += dcOffset;
-            /// Apply burst mode
             if (burstMode && burstPeriod > 0) {
-                double cycleTime = 1.0 / currentFreq;
-                double burstDuration = burstCycles * cycleTime;
-                double burstPhase = t % burstPeriod;
-                if (burstPhase > burstDuration) {
+                double burstDuration = burstCycles / currentFreq;
+                if (t % burstPeriod > burstDuration) {
                     value = 0;
                 }
             }
-            /// Apply quantization
-            value = quantize(value, data.getResolution(), quantizationNoise);
-            waveform[i] = value;
+            buffer[offset + i] = value;
+            carrier.advance();
+            harmonic.advance();
+        }
+        if (quantizationNoise) {
+            quantizer.quantize(buffer, offset, length, random);
+        } else {
+            quantizer.quantize(buffer, offset, length);
+        }
+        ddsNextSampleIndex = startSampleIndex + length;
+    }
+
+    private PhaseNoiseMask phaseNoiseMask(WaveformData data) {
+        String mask = data.getPhaseNoiseMask();
+        if (!PhaseNoiseMask.isActive(mask)) {
+            return null;
+        }
+        if (phaseNoiseMask == null || !phaseNoiseMask.matches(mask, data.getSamplingRate())) {
+            phaseNoiseMask = new PhaseNoiseMask(mask, data.getSamplingRate());
+        }
+        return phaseNoiseMask;
+    }
+
+    /// Resolved once per block so the sample loop switches on a constant int rather than a String
+    private static int ddsShape(String type) {
+        switch (type) {
+            case "Square":
+                return DDS_SQUARE;
+            case "Triangle":
+                return DDS_TRIANGLE;
+            case "Sawtooth":
+                return DDS_SAWTOOTH;
+            default:
+                return DDS_SINE;
         }
-        return waveform;
+    }
+
+    /// The array-kernel path covers sine plus harmonic, drift, DC offset and quantization
+    private static boolean isVectorizable(String type, WaveformData data) {
+        return type.equals("Sine") && data.getJitterAmount() <= 0 && data.getPhaseNoise() <= 0
+                && !PhaseNoiseMask.isActive(data.getPhaseNoiseMask())
+                && !data.isFrequencySweep() && !data.isBurstMode() && !data.isQuantizationNoise();
+    }
+
+    private void generateVectorized(WaveformData data, double[] buffer, int offset, int length, long startSampleIndex) {
+        this.waveformData = data;
+        SampleKernels kernels = SampleKernels.preferred();
+        double samplingRate = data.getSamplingRate();
+        double baseFreq = data.getFrequency();
+        double totalPhase = Math.toRadians(data.isSyncChannels() ? data.getPhase() : data.getPhase() + data.getPhaseOffset());
+        double harmonic1Amp = data.getHarmonic1Amp();
+        double harmonicFreq = data.getHarmonic1Freq() * baseFreq;
+        double driftRate = data.getDriftRate();
+        double step = Quantizer.forResolution(data.getResolution()).getStep();
+        if (kernelBlock == null) {
+            kernelBlock = new double[KERNEL_BLOCK_SIZE];
+            kernelScratch = new double[KERNEL_BLOCK_SIZE];
+        }
+
+        for (int done = 0; done < length; done += KERNEL_BLOCK_SIZE) {
+            WaveformRenderService.checkCancelled();
+            int count = Math.min(KERNEL_BLOCK_SIZE, length - done);
+            double t0 = (double) (startSampleIndex + done) / samplingRate;
+            kernels.ramp(kernelBlock, count, 2 * Math.PI * baseFreq * t0 + totalPhase, 2 * Math.PI * baseFreq / samplingRate);
+            kernels.sine(kernelBlock, kernelBlock, count);
+            if (harmonic1Amp > 0) {
+                kernels.ramp(kernelScratch, count, 2 * Math.PI * harmonicFreq * t0 + totalPhase, 2 * Math.PI * harmonicFreq / samplingRate);
+                kernels.sine(kernelScratch, kernelScratch, count);
+            }
+            kernels.combine(kernelBlock, kernelScratch, count, data.getAmplitude(), harmonic1Amp > 0 ? harmonic1Amp : 0);
+            if (driftRate != 0) {
+                kernels.scaleRamp(kernelBlock, count, 1 + driftRate * t0 / 100, driftRate / 100 / samplingRate);
+            }
+            kernels.offset(kernelBlock, count, data.getDcOffset());
+            kernels.quantize(kernelBlock, count, step);
+            System.arraycopy(kernelBlock, 0, buffer, offset + done, count);
+        }
+    }
+
+    /// Phase in cycles the accumulator has summed over the first n sweep samples (closed-form series)
+    private static double sweepCycles(long n, double samplingRate, double startFreq, double stopFreq, double sweepDuration, boolean logSweep) {
+        double sweepSamples = sweepDuration * samplingRate;
+        long swept = Math.min(n, (long) Math.ceil(sweepSamples));
+        double cycles;
+        if (logSweep && stopFreq != startFreq) {
+            double step = Math.pow(stopFreq / startFreq, 1 / sweepSamples);
+            cycles = startFreq * (Math.pow(step, swept) - 1) / (step - 1);
+        } else {
+            double slope = (stopFreq - startFreq) / sweepSamples;
+            cycles = startFreq * swept + slope * swept * (swept - 1) / 2.0;
+        }
+        return (cycles + stopFreq * (n - swept)) / samplingRate;
     }
 
     public void importCsv(File file) {
-        customPoints.clear();
+        CustomWaveform imported = new CustomWaveform();
         try (BufferedReader br = new BufferedReader(new FileReader(file))) {
             String line;
             while ((line = br.readLine()) != null) {
-                String[] values = line.split(",");
-                if (values.length != 2) {
+                int comma = line.indexOf(',');
+                if (comma < 0 || line.indexOf(',', comma + 1) >= 0) {
                     throw new IllegalArgumentException("CSV must have exactly two columns (time, amplitude)");
                 }
                 try {
-                    double time = Double.parseDouble(values[0]);
-                    double amplitude = Double.parseDouble(values[1]);
+                    double time = Double.parseDouble(line.substring(0, comma));
+                    double amplitude = Double.parseDouble(line.substring(comma + 1));
                     if (time < 0 || time > 1) {
                         throw new IllegalArgumentException("Time values must be between 0 and 1");
                     }
-                    customPoints.add(new double[]{time, amplitude});
+                    imported.add(time, amplitude);
                 } catch (NumberFormatException e) {
                     throw new IllegalArgumentException("Invalid number format in CSV line: " + line);
                 }
@@ -128,45 +316,26 @@ public class WaveformGenerator {
         } catch (Exception e) {
             throw new RuntimeException("Failed to import CSV: " + e.getMessage(), e);
         }
+        customWaveform = imported;
     }
 
     public void addCustomPoint(double x, double y) {
-        customPoints.add(new double[]{x, y});
-    }
-
-    private double evaluateCustom(double t) {
-        if (!customPoints.isEmpty()) {
-            double duration = waveformData.getDuration();
-            double normalizedT = t / duration;
-            for (int i = 0; i < customPoints.size() - 1; i++) {
-                double t1 = customPoints.get(i)[0], v1 = customPoints.get(i)[1];
-                double t2 = customPoints.get(i + 1)[0], v2 = customPoints.get(i + 1)[1];
-                if (normalizedT >= t1 && normalizedT <= t2) {
-                    return v1 + (v2 - v1) * (normalizedT - t1) / (t2 - t1);
-                }
-            }
-            return customPoints.get(customPoints.size() - 1)[1];
-        }
-        return 0;
+        customWaveform.add(x, y);
     }
 
-    private double quantize(double value, String resolution, boolean addNoise) {
-        int bits = Integer.parseInt(resolution.split("-")[0]);
-        int levels = (int) Math.pow(2, bits);
-        double step = 2.0 / (levels - 1);
-        double quantized = Math.round(value / step) * step;
-        if (addNoise && bits < 14) {
-            double noiseAmplitude = step * 0.1;
-            quantized += noiseAmplitude * (2 * random.nextDouble() - 1);
-        }
-        return Math.max(-1, Math.min(1, quantized));
-    }
-
-    public double[] getWaveform() {
-        return waveform;
+    public CustomWaveform getCustomWaveform() {
+        return customWaveform;
     }
 
     public void setWaveformData(WaveformData waveformData) {
         this.waveformData = waveformData;
     }
+
+    RandomGenerator getRandom() {
+        return random;
+    }
+
+    public void setRandom(RandomGenerator random) {
+        this.random = random;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,560 @@
+package awg.simulation.software;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/// WaveformData compiled once into a chain of monomorphic block stages, so the sample loops carry no
+/// string switches or feature flags. Each random stage gets its own stream split off at compile time.
+public class WaveformPipeline {
+    public static final int BLOCK_SIZE = 4096;
+
+    private final double samplingRate;
+    private final WaveformStage[] stages;
+    private final WaveformStage quantizerStage;
+    private final Block block;
+
+    private WaveformPipeline(double samplingRate, List<WaveformStage> stages, WaveformStage quantizerStage, Block block) {
+        this.samplingRate = samplingRate;
+        this.stages = stages.toArray(new WaveformStage[0]);
+        this.quantizerStage = quantizerStage;
+        this.block = block;
+    }
+
+    /// phaseNoiseMask carries the mask's phase process between pipelines; null when the settings have no mask
+    public static WaveformPipeline compile(String type, WaveformData data, CustomWaveform custom, RandomGenerator random,
+                                           PhaseNoiseMask phaseNoiseMask) {
+        double totalPhase = totalPhase(data);
+        Block block = new Block(data.getJitterAmount() > 0);
+        List<WaveformStage> stages = oscillatorStages(type, data, custom, random, phaseNoiseMask, block);
+        stages.add(new AmplitudeStage(data.getAmplitude(), data.getDriftRate()));
+        if (data.getHarmonic1Amp() > 0 && !type.equals("Custom")) {
+            stages.add(new HarmonicStage(data.getHarmonic1Amp(), data.getHarmonic1Freq(), totalPhase, data.getDriftRate()));
+        }
+        stages.addAll(finishStages(data));
+        Quantizer quantizer = Quantizer.forResolution(data.getResolution());
+        RandomGenerator quantizerRandom = split(random);
+        WaveformStage quantizerStage = data.isQuantizationNoise()
+                ? new NoisyQuantizerStage(quantizer, quantizerRandom)
+                : new QuantizerStage(quantizer);
+        return new WaveformPipeline(data.getSamplingRate(), stages, quantizerStage, block);
+    }
+
+    /// Record-level front end for IncrementalRenderer: writes the unit-amplitude shape, the unit harmonic
+    /// (when harmonic is non-null) and the per-sample frequency (when frequency is non-null). Random streams are
+    /// split in the same order as compile(), and the returned seed is the one compile() would give the quantizer.
+    static long renderCarrier(String type, WaveformData data, CustomWaveform custom, RandomGenerator random,
+                              double[] shape, double[] harmonic, double[] frequency) {
+        Block block = new Block(data.getJitterAmount() > 0);
+        PhaseNoiseMask phaseNoiseMask = PhaseNoiseMask.isActive(data.getPhaseNoiseMask())
+                ? new PhaseNoiseMask(data.getPhaseNoiseMask(), data.getSamplingRate())
+                : null;
+        List<WaveformStage> stages = oscillatorStages(type, data, custom, random, phaseNoiseMask, block);
+        if (harmonic != null) {
+            block.harmonic = new double[BLOCK_SIZE];
+            stages.add(new UnitHarmonicStage(data.getHarmonic1Freq(), totalPhase(data)));
+        }
+        long quantizerSeed = random.nextLong();
+        WaveformPipeline pipeline = new WaveformPipeline(data.getSamplingRate(), stages, null, block);
+        /// A periodic carrier is synthesized for one period only and tiled
+        int period = Periodicity.oscillatorPeriod(type, data, shape.length);
+        int synthesized = period > 0 ? period : shape.length;
+        for (int done = 0; done < synthesized; done += BLOCK_SIZE) {
+            WaveformRenderService.checkCancelled();
+            int count = Math.min(BLOCK_SIZE, synthesized - done);
+            pipeline.runStages(count, done);
+            System.arraycopy(block.value, 0, shape, done, count);
+            if (harmonic != null) {
+                System.arraycopy(block.harmonic, 0, harmonic, done, count);
+            }
+            if (frequency != null) {
+                System.arraycopy(block.frequency, 0, frequency, done, count);
+            }
+        }
+        if (period > 0) {
+            Periodicity.tile(shape, 0, period, shape.length);
+            if (harmonic != null) {
+                Periodicity.tile(harmonic, 0, period, harmonic.length);
+            }
+        }
+        return quantizerSeed;
+    }
+
+    /// Same arithmetic as AmplitudeStage followed by HarmonicStage, applied to a rendered carrier
+    static void mix(WaveformData data, double[] shape, double[] harmonic, double[] mixed) {
+        double samplingRate = data.getSamplingRate();
+        double amplitude = data.getAmplitude();
+        double driftRate = data.getDriftRate();
+        double harmonicAmp = harmonic != null ? data.getHarmonic1Amp() : 0;
+        for (int i = 0; i < shape.length; i++) {
+            double time = (double) i / samplingRate;
+            double value = shape[i] * (amplitude * (1 + driftRate * time / 100));
+            if (harmonicAmp > 0) {
+                value += harmonicAmp * harmonic[i] * (1 + driftRate * time / 100);
+            }
+            mixed[i] = value;
+        }
+    }
+
+    /// Offset, burst and quantizer stages run over a whole record in place
+    static void finish(WaveformData data, double[] frequency, long quantizerSeed, double[] values) {
+        Block block = new Block(false);
+        Arrays.fill(block.frequency, data.getFrequency());
+        List<WaveformStage> stages = finishStages(data);
+        Quantizer quantizer = Quantizer.forResolution(data.getResolution());
+        stages.add(data.isQuantizationNoise()
+                ? new NoisyQuantizerStage(quantizer, RandomSource.create(quantizerSeed))
+                : new QuantizerStage(quantizer));
+        WaveformPipeline pipeline = new WaveformPipeline(data.getSamplingRate(), stages, null, block);
+        for (int done = 0; done < values.length; done += BLOCK_SIZE) {
+            WaveformRenderService.checkCancelled();
+            int count = Math.min(BLOCK_SIZE, values.length - done);
+            System.arraycopy(values, done, block.value, 0, count);
+            if (frequency != null) {
+                System.arraycopy(frequency, done, block.frequency, 0, count);
+            }
+            pipeline.runStages(count, done);
+            System.arraycopy(block.value, 0, values, done, count);
+        }
+    }
+
+    /// Timing, jitter, sweep, phase noise and the unit-amplitude shape
+    private static List<WaveformStage> oscillatorStages(String type, WaveformData data, CustomWaveform custom,
+                                                        RandomGenerator random, PhaseNoiseMask phaseNoiseMask, Block block) {
+        double totalPhase = totalPhase(data);
+        double dutyCycle = data.getDutyCycle() / 100.0;
+        Arrays.fill(block.frequency, data.getFrequency());
+        List<WaveformStage> stages = new ArrayList<>();
+
+        if (data.getJitterAmount() > 0) {
+            stages.add(new JitterStage(data.getJitterAmount(), split(random)));
+        }
+        if (data.isFrequencySweep() && data.getSweepDuration() > 0) {
+            double startFreq = Math.min(data.getStartFreq(), data.getStopFreq());
+            double stopFreq = Math.max(data.getStartFreq(), data.getStopFreq());
+            if ("Linear".equals(data.getSweepType())) {
+                stages.add(new LinearSweepStage(startFreq, stopFreq, data.getSweepDuration()));
+            } else if ("Logarithmic".equals(data.getSweepType())) {
+                stages.add(new LogSweepStage(startFreq, stopFreq, data.getSweepDuration()));
+            }
+        }
+        if (data.getPhaseNoise() > 0) {
+            stages.add(new PhaseNoiseStage(Math.toRadians(data.getPhaseNoise()), split(random)));
+        }
+        if (phaseNoiseMask != null) {
+            stages.add(new PhaseNoiseMaskStage(phaseNoiseMask, split(random), data.getPhaseNoise() > 0));
+        }
+        switch (type) {
+            case "Sine":
+                stages.add(new SineStage(totalPhase));
+                break;
+            case "Square":
+                stages.add(new SquareStage(totalPhase, dutyCycle));
+                break;
+            case "Triangle":
+                stages.add(new TriangleStage());
+                break;
+            case "Sawtooth":
+                stages.add(new SawtoothStage(dutyCycle));
+                break;
+            case "Custom":
+                stages.add(new CustomStage(custom.cursor(), data.getDuration()));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown waveform type: " + type);
+        }
+        return stages;
+    }
+
+    /// Offset and burst gating (the quantizer is added separately)
+    private static List<WaveformStage> finishStages(WaveformData data) {
+        List<WaveformStage> stages = new ArrayList<>();
+        if (data.getDcOffset() != 0) {
+            stages.add(new OffsetStage(data.getDcOffset()));
+        }
+        if (data.isBurstMode() && data.getBurstPeriod() > 0) {
+            stages.add(new BurstStage(data.getBurstCycles(), data.getBurstPeriod()));
+        }
+        return stages;
+    }
+
+    private static double totalPhase(WaveformData data) {
+        return Math.toRadians(data.isSyncChannels() ? data.getPhase() : data.getPhase() + data.getPhaseOffset());
+    }
+
+    public void process(double[] buffer, int offset, int length, long startSampleIndex) {
+        for (int done = 0; done < length; done += BLOCK_SIZE) {
+            WaveformRenderService.checkCancelled();
+            int count = Math.min(BLOCK_SIZE, length - done);
+            runStages(count, startSampleIndex + done);
+            quantizerStage.process(block, count);
+            System.arraycopy(block.value, 0, buffer, offset + done, count);
+        }
+    }
+
+    private void runStages(int count, long firstSampleIndex) {
+        block.firstSampleIndex = firstSampleIndex;
+        double[] time = block.time;
+        for (int i = 0; i < count; i++) {
+            time[i] = (double) (firstSampleIndex + i) / samplingRate;
+        }
+        for (WaveformStage stage : stages) {
+            stage.process(block, count);
+        }
+    }
+
+    private static RandomGenerator split(RandomGenerator random) {
+        return RandomSource.split(random);
+    }
+
+    /// Per-block working columns shared by the stages
+    public static final class Block {
+        final double[] time = new double[BLOCK_SIZE];
+        /// Aliases time unless jitter is enabled
+        final double[] jitteredTime;
+        final double[] frequency = new double[BLOCK_SIZE];
+        final double[] phaseNoise = new double[BLOCK_SIZE];
+        final double[] value = new double[BLOCK_SIZE];
+        long firstSampleIndex;
+        /// Unit harmonic, only allocated for record-level carrier rendering
+        double[] harmonic;
+
+        Block(boolean jitter) {
+            jitteredTime = jitter ? new double[BLOCK_SIZE] : time;
+        }
+    }
+
+    private static final class JitterStage implements WaveformStage {
+        private final double amount;
+        private final RandomGenerator random;
+
+        JitterStage(double amount, RandomGenerator random) {
+            this.amount = amount;
+            this.random = random;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            double[] time = block.time;
+            double[] jittered = block.jitteredTime;
+            Ziggurat.fill(random, jittered, 0, length, 0, amount);
+            for (int i = 0; i < length; i++) {
+                jittered[i] = Math.max(0, time[i] + jittered[i]);
+            }
+        }
+    }
+
+    private static final class LinearSweepStage implements WaveformStage {
+        private final double startFreq;
+        private final double span;
+        private final double duration;
+
+        LinearSweepStage(double startFreq, double stopFreq, double duration) {
+            this.startFreq = startFreq;
+            this.span = stopFreq - startFreq;
+            this.duration = duration;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            double[] time = block.time;
+            double[] frequency = block.frequency;
+            for (int i = 0; i < length; i++) {
+                frequency[i] = startFreq + span * Math.min(time[i] / duration, 1.0);
+            }
+        }
+    }
+
+    private static final class LogSweepStage implements WaveformStage {
+        private final double logStart;
+        private final double logSpan;
+        private final double duration;
+
+        LogSweepStage(double startFreq, double stopFreq, double duration) {
+            this.logStart = Math.log10(startFreq);
+            this.logSpan = Math.log10(stopFreq) - logStart;
+            this.duration = duration;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            double[] time = block.time;
+            double[] frequency = block.frequency;
+            for (int i = 0; i < length; i++) {
+                frequency[i] = Math.pow(10, logStart + logSpan * Math.min(time[i] / duration, 1.0));
+            }
+        }
+    }
+
+    private static final class PhaseNoiseStage implements WaveformStage {
+        private final double radians;
+        private final RandomGenerator random;
+
+        PhaseNoiseStage(double radians, RandomGenerator random) {
+            this.radians = radians;
+            this.random = random;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            Ziggurat.fill(random, block.phaseNoise, 0, length, 0, radians);
+        }
+    }
+
+    /// Adds the mask's phase process to the per-sample phase, on top of the white phase noise when both are on
+    private static final class PhaseNoiseMaskStage implements WaveformStage {
+        private final PhaseNoiseMask mask;
+        private final RandomGenerator random;
+        private final double[] scratch;
+
+        PhaseNoiseMaskStage(PhaseNoiseMask mask, RandomGenerator random, boolean accumulate) {
+            this.mask = mask;
+            this.random = random;
+            this.scratch = accumulate ? new double[BLOCK_SIZE] : null;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            double[] phaseNoise = block.phaseNoise;
+            if (scratch == null) {
+                mask.fill(random, phaseNoise, 0, length, block.firstSampleIndex);
+                return;
+            }
+            mask.fill(random, scratch, 0, length, block.firstSampleIndex);
+            for (int i = 0; i < length; i++) {
+                phaseNoise[i] += scratch[i];
+            }
+        }
+    }
+
+    private static final class SineStage implements WaveformStage {
+        private final double phase;
+
+        SineStage(double phase) {
+            this.phase = phase;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            double[] time = block.jitteredTime;
+            double[] frequency = block.frequency;
+            double[] phaseNoise = block.phaseNoise;
+            double[] value = block.value;
+            for (int i = 0; i < length; i++) {
+                value[i] = Math.sin(2 * Math.PI * frequency[i] * time[i] + phase + phaseNoise[i]);
+            }
+        }
+    }
+
+    private static final class SquareStage implements WaveformStage {
+        private final double phase;
+        private final double threshold;
+
+        SquareStage(double phase, double dutyCycle) {
+            this.phase = phase;
+            this.threshold = 2 * Math.PI * dutyCycle;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            double[] time = block.jitteredTime;
+            double[] frequency = block.frequency;
+            double[] phaseNoise = block.phaseNoise;
+            double[] value = block.value;
+            for (int i = 0; i < length; i++) {
+                double squarePhase = 2 * Math.PI * frequency[i] * time[i] + phase + phaseNoise[i];
+                value[i] = (squarePhase % (2 * Math.PI)) < threshold ? 1 : -1;
+            }
+        }
+    }
+
+    private static final class TriangleStage implements WaveformStage {
+        @Override
+        public void process(Block block, int length) {
+            double[] time = block.jitteredTime;
+            double[] frequency = block.frequency;
+            double[] value = block.value;
+            for (int i = 0; i < length; i++) {
+                double cycles = time[i] * frequency[i];
+                value[i] = 2 * Math.abs(2 * (cycles - Math.floor(cycles + 0.5))) - 1;
+            }
+        }
+    }
+
+    private static final class SawtoothStage implements WaveformStage {
+        private final double dutyCycle;
+
+        SawtoothStage(double dutyCycle) {
+            this.dutyCycle = dutyCycle;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            double[] time = block.jitteredTime;
+            double[] frequency = block.frequency;
+            double[] value = block.value;
+            for (int i = 0; i < length; i++) {
+                double cycles = time[i] * frequency[i];
+                double sawPhase = cycles - Math.floor(cycles);
+                value[i] = sawPhase < dutyCycle ? (sawPhase / dutyCycle) * 2 - 1 : -1 + (sawPhase - dutyCycle) / (1 - dutyCycle) * 2;
+            }
+        }
+    }
+
+    private static final class CustomStage implements WaveformStage {
+        private final CustomWaveform.Cursor cursor;
+        private final double duration;
+
+        CustomStage(CustomWaveform.Cursor cursor, double duration) {
+            this.cursor = cursor;
+            this.duration = duration;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            double[] time = block.time;
+            double[] value = block.value;
+            for (int i = 0; i < length; i++) {
+                value[i] = cursor.valueAt(time[i] / duration);
+            }
+        }
+    }
+
+    /// Amplitude and linear drift (drift rate in %/s)
+    private static final class AmplitudeStage implements WaveformStage {
+        private final double amplitude;
+        private final double driftRate;
+
+        AmplitudeStage(double amplitude, double driftRate) {
+            this.amplitude = amplitude;
+            this.driftRate = driftRate;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            double[] time = block.time;
+            double[] value = block.value;
+            for (int i = 0; i < length; i++) {
+                value[i] *= amplitude * (1 + driftRate * time[i] / 100);
+            }
+        }
+    }
+
+    private static final class HarmonicStage implements WaveformStage {
+        private final double amplitude;
+        private final double multiplier;
+        private final double phase;
+        private final double driftRate;
+
+        HarmonicStage(double amplitude, double multiplier, double phase, double driftRate) {
+            this.amplitude = amplitude;
+            this.multiplier = multiplier;
+            this.phase = phase;
+            this.driftRate = driftRate;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            double[] time = block.time;
+            double[] jittered = block.jitteredTime;
+            double[] frequency = block.frequency;
+            double[] phaseNoise = block.phaseNoise;
+            double[] value = block.value;
+            for (int i = 0; i < length; i++) {
+                double driftFactor = 1 + driftRate * time[i] / 100;
+                double harmonicFreq = multiplier * frequency[i];
+                value[i] += amplitude * Math.sin(2 * Math.PI * harmonicFreq * jittered[i] + phase + phaseNoise[i]) * driftFactor;
+            }
+        }
+    }
+
+    /// Unit-amplitude harmonic into its own column, so its level can change without re-running the oscillator
+    private static final class UnitHarmonicStage implements WaveformStage {
+        private final double multiplier;
+        private final double phase;
+
+        UnitHarmonicStage(double multiplier, double phase) {
+            this.multiplier = multiplier;
+            this.phase = phase;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            double[] jittered = block.jitteredTime;
+            double[] frequency = block.frequency;
+            double[] phaseNoise = block.phaseNoise;
+            double[] harmonic = block.harmonic;
+            for (int i = 0; i < length; i++) {
+                double harmonicFreq = multiplier * frequency[i];
+                harmonic[i] = Math.sin(2 * Math.PI * harmonicFreq * jittered[i] + phase + phaseNoise[i]);
+            }
+        }
+    }
+
+    private static final class OffsetStage implements WaveformStage {
+        private final double offset;
+
+        OffsetStage(double offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            double[] value = block.value;
+            for (int i = 0; i < length; i++) {
+                value[i] += offset;
+            }
+        }
+    }
+
+    private static final class BurstStage implements WaveformStage {
+        private final int cycles;
+        private final double period;
+
+        BurstStage(int cycles, double period) {
+            this.cycles = cycles;
+            this.period = period;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            double[] time = block.time;
+            double[] frequency = block.frequency;
+            double[] value = block.value;
+            for (int i = 0; i < length; i++) {
+                if (time[i] % period > cycles * (1.0 / frequency[i])) {
+                    value[i] = 0;
+                }
+            }
+        }
+    }
+
+    private static final class QuantizerStage implements WaveformStage {
+        private final Quantizer quantizer;
+
+        QuantizerStage(Quantizer quantizer) {
+            this.quantizer = quantizer;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            quantizer.quantize(block.value, 0, length);
+        }
+    }
+
+    private static final class NoisyQuantizerStage implements WaveformStage {
+        private final Quantizer quantizer;
+        private final RandomGenerator random;
+
+        NoisyQuantizerStage(Quantizer quantizer, RandomGenerator random) {
+            this.quantizer = quantizer;
+            this.random = random;
+        }
+
+        @Override
+        public void process(Block block, int length) {
+            quantizer.quantize(block.value, 0, length, random);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+package awg.simulation.software;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/// Runs waveform jobs on one background thread so the UI thread never waits on sample math. Submitting a job
+/// cancels the one in flight, and only the latest job's result or error is handed to the UI executor.
+public class WaveformRenderService {
+    /// Cancellation flag of the job whose work the current pool worker is running, if any
+    private static final ThreadLocal<AtomicBoolean> POOL_JOB = new ThreadLocal<>();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "waveform-render");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Executor uiExecutor;
+    private Future<?> current;
+    private long latestJob;
+
+    public WaveformRenderService(Executor uiExecutor) {
+        this.uiExecutor = uiExecutor;
+    }
+
+    /// Cancellation interrupts the render thread; long sample loops poll this between blocks. On a pool
+    /// worker running part of a job (see runOnPool), the job's cancellation flag counts as well.
+    public static void checkCancelled() {
+        AtomicBoolean cancelled = POOL_JOB.get();
+        if (Thread.currentThread().isInterrupted() || (cancelled != null && cancelled.get())) {
+            throw new CancellationException("Superseded by a newer render");
+        }
+    }
+
+    /// Runs task on pool and waits for it like ForkJoinPool.invoke, except that an interrupt of the waiting
+    /// thread sets cancelled and returns at once. Pool workers are never interrupted by Future.cancel, so the
+    /// task's pieces must run their work through runAsPartOf with the same flag to stop early.
+    public static <T> T runOnPool(ForkJoinPool pool, ForkJoinTask<T> task, AtomicBoolean cancelled) {
+        pool.execute(task);
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            task.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Superseded by a newer render");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /// Runs work on the current pool worker with checkCancelled also honouring cancelled
+    public static void runAsPartOf(AtomicBoolean cancelled, Runnable work) {
+        AtomicBoolean outer = POOL_JOB.get();
+        POOL_JOB.set(cancelled);
+        try {
+            work.run();
+        } finally {
+            if (outer != null) {
+                POOL_JOB.set(outer);
+            } else {
+                POOL_JOB.remove();
+            }
+        }
+    }
+
+    public synchronized <T> void submit(Callable<T> job, Consumer<T> onResult, Consumer<Exception> onError) {
+        if (current != null) {
+            current.cancel(true);
+        }
+        long jobId = ++latestJob;
+        current = executor.submit(() -> {
+            try {
+                T result = job.call();
+                deliver(jobId, () -> onResult.accept(result));
+            } catch (CancellationException e) {
+                /// Superseded: the newer job reports instead
+            } catch (Exception e) {
+                deliver(jobId, () -> onError.accept(e));
+            }
+        });
+    }
+
+    public synchronized boolean isBusy() {
+        return current != null && !current.isDone();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /// Results are dropped if a newer job was submitted meanwhile
+    private void deliver(long jobId, Runnable callback) {
+        uiExecutor.execute(() -> {
+            if (isLatest(jobId)) {
+                callback.run();
+            }
+        });
+    }
+
+    private synchronized boolean isLatest(long jobId) {
+        return jobId == latestJob;
+    }
+}
\ No newline at end of file
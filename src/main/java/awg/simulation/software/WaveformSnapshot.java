@@ -0,0 +1,415 @@
+package awg.simulation.software;
+
+/// Immutable copy of everything one render needs: waveform and modulation type, every WaveformData setting and
+/// frozen custom point sets. Safe to share between threads; pair it with an explicit random stream in the
+/// static entry points (WaveformGenerator.generate, NoiseGenerator.generate, SignalChain.render).
+public record WaveformSnapshot(
+        String type,
+        String modulationType,
+        double samplingRate,
+        int samples,
+        double duration,
+        String resolution,
+        double amplitude,
+        double frequency,
+        double phase,
+        double harmonic1Amp,
+        double harmonic1Freq,
+        double carrierFreq,
+        double modIndex,
+        boolean iqSignal,
+        String selectedChannel,
+        double phaseOffset,
+        boolean syncChannels,
+        String noiseType,
+        double noiseAmplitude,
+        double jitterAmount,
+        double driftRate,
+        boolean quantizationNoise,
+        double dcOffset,
+        double dutyCycle,
+        boolean burstMode,
+        int burstCycles,
+        double burstPeriod,
+        boolean frequencySweep,
+        String sweepType,
+        double startFreq,
+        double stopFreq,
+        double sweepDuration,
+        double phaseNoise,
+        boolean ddsMode,
+        boolean parallelGeneration,
+        long seed,
+        boolean fixedSeed,
+        boolean vectorBackend,
+        String samplePrecision,
+        String phaseNoiseMask,
+        String constellation,
+        double symbolRate,
+        String bitSource,
+        String bitFile,
+        CustomWaveform customPoints,
+        CustomWaveform customNoise,
+        CustomWaveform spectralProfile) {
+
+    public WaveformSnapshot {
+        customPoints = customPoints == null ? CustomWaveform.EMPTY : customPoints.frozenCopy();
+        customNoise = customNoise == null ? CustomWaveform.EMPTY : customNoise.frozenCopy();
+        spectralProfile = spectralProfile == null ? CustomWaveform.EMPTY : spectralProfile.frozenCopy();
+    }
+
+    /// Starts from the WaveformData defaults with a sine and no modulation
+    public static Builder builder() {
+        return new WaveformData().snapshot("Sine", "None", null, null, null).toBuilder();
+    }
+
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /// Private mutable copy for the engines that read WaveformData
+    public WaveformData toData() {
+        return new WaveformData(this);
+    }
+
+    public static final class Builder {
+        private String type;
+        private String modulationType;
+        private double samplingRate;
+        private int samples;
+        private double duration;
+        private String resolution;
+        private double amplitude;
+        private double frequency;
+        private double phase;
+        private double harmonic1Amp;
+        private double harmonic1Freq;
+        private double carrierFreq;
+        private double modIndex;
+        private boolean iqSignal;
+        private String selectedChannel;
+        private double phaseOffset;
+        private boolean syncChannels;
+        private String noiseType;
+        private double noiseAmplitude;
+        private double jitterAmount;
+        private double driftRate;
+        private boolean quantizationNoise;
+        private double dcOffset;
+        private double dutyCycle;
+        private boolean burstMode;
+        private int burstCycles;
+        private double burstPeriod;
+        private boolean frequencySweep;
+        private String sweepType;
+        private double startFreq;
+        private double stopFreq;
+        private double sweepDuration;
+        private double phaseNoise;
+        private boolean ddsMode;
+        private boolean parallelGeneration;
+        private long seed;
+        private boolean fixedSeed;
+        private boolean vectorBackend;
+        private String samplePrecision;
+        private String phaseNoiseMask;
+        private String constellation;
+        private double symbolRate;
+        private String bitSource;
+        private String bitFile;
+        private CustomWaveform customPoints;
+        private CustomWaveform customNoise;
+        private CustomWaveform spectralProfile;
+
+        private Builder(WaveformSnapshot snapshot) {
+            type = snapshot.type;
+            modulationType = snapshot.modulationType;
+            samplingRate = snapshot.samplingRate;
+            samples = snapshot.samples;
+            duration = snapshot.duration;
+            resolution = snapshot.resolution;
+            amplitude = snapshot.amplitude;
+            frequency = snapshot.frequency;
+            phase = snapshot.phase;
+            harmonic1Amp = snapshot.harmonic1Amp;
+            harmonic1Freq = snapshot.harmonic1Freq;
+            carrierFreq = snapshot.carrierFreq;
+            modIndex = snapshot.modIndex;
+            iqSignal = snapshot.iqSignal;
+            selectedChannel = snapshot.selectedChannel;
+            phaseOffset = snapshot.phaseOffset;
+            syncChannels = snapshot.syncChannels;
+            noiseType = snapshot.noiseType;
+            noiseAmplitude = snapshot.noiseAmplitude;
+            jitterAmount = snapshot.jitterAmount;
+            driftRate = snapshot.driftRate;
+            quantizationNoise = snapshot.quantizationNoise;
+            dcOffset = snapshot.dcOffset;
+            dutyCycle = snapshot.dutyCycle;
+            burstMode = snapshot.burstMode;
+            burstCycles = snapshot.burstCycles;
+            burstPeriod = snapshot.burstPeriod;
+            frequencySweep = snapshot.frequencySweep;
+            sweepType = snapshot.sweepType;
+            startFreq = snapshot.startFreq;
+            stopFreq = snapshot.stopFreq;
+            sweepDuration = snapshot.sweepDuration;
+            phaseNoise = snapshot.phaseNoise;
+            ddsMode = snapshot.ddsMode;
+            parallelGeneration = snapshot.parallelGeneration;
+            seed = snapshot.seed;
+            fixedSeed = snapshot.fixedSeed;
+            vectorBackend = snapshot.vectorBackend;
+            samplePrecision = snapshot.samplePrecision;
+            phaseNoiseMask = snapshot.phaseNoiseMask;
+            constellation = snapshot.constellation;
+            symbolRate = snapshot.symbolRate;
+            bitSource = snapshot.bitSource;
+            bitFile = snapshot.bitFile;
+            customPoints = snapshot.customPoints;
+            customNoise = snapshot.customNoise;
+            spectralProfile = snapshot.spectralProfile;
+        }
+
+        public Builder type(String type) {
+            this.type = type;
+            return this;
+        }
+
+        public Builder modulationType(String modulationType) {
+            this.modulationType = modulationType;
+            return this;
+        }
+
+        public Builder samplingRate(double samplingRate) {
+            this.samplingRate = samplingRate;
+            return this;
+        }
+
+        /// Also sets the duration from the current sampling rate, as WaveformData.setSamples does
+        public Builder samples(int samples) {
+            this.samples = samples;
+            this.duration = samples / samplingRate;
+            return this;
+        }
+
+        public Builder resolution(String resolution) {
+            this.resolution = resolution;
+            return this;
+        }
+
+        public Builder amplitude(double amplitude) {
+            this.amplitude = amplitude;
+            return this;
+        }
+
+        public Builder frequency(double frequency) {
+            this.frequency = frequency;
+            return this;
+        }
+
+        public Builder phase(double phase) {
+            this.phase = phase;
+            return this;
+        }
+
+        public Builder harmonic1Amp(double harmonic1Amp) {
+            this.harmonic1Amp = harmonic1Amp;
+            return this;
+        }
+
+        public Builder harmonic1Freq(double harmonic1Freq) {
+            this.harmonic1Freq = harmonic1Freq;
+            return this;
+        }
+
+        public Builder carrierFreq(double carrierFreq) {
+            this.carrierFreq = carrierFreq;
+            return this;
+        }
+
+        public Builder modIndex(double modIndex) {
+            this.modIndex = modIndex;
+            return this;
+        }
+
+        public Builder iqSignal(boolean iqSignal) {
+            this.iqSignal = iqSignal;
+            return this;
+        }
+
+        public Builder selectedChannel(String selectedChannel) {
+            this.selectedChannel = selectedChannel;
+            return this;
+        }
+
+        public Builder phaseOffset(double phaseOffset) {
+            this.phaseOffset = phaseOffset;
+            return this;
+        }
+
+        public Builder syncChannels(boolean syncChannels) {
+            this.syncChannels = syncChannels;
+            return this;
+        }
+
+        public Builder noiseType(String noiseType) {
+            this.noiseType = noiseType;
+            return this;
+        }
+
+        public Builder noiseAmplitude(double noiseAmplitude) {
+            this.noiseAmplitude = noiseAmplitude;
+            return this;
+        }
+
+        public Builder jitterAmount(double jitterAmount) {
+            this.jitterAmount = jitterAmount;
+            return this;
+        }
+
+        public Builder driftRate(double driftRate) {
+            this.driftRate = driftRate;
+            return this;
+        }
+
+        public Builder quantizationNoise(boolean quantizationNoise) {
+            this.quantizationNoise = quantizationNoise;
+            return this;
+        }
+
+        public Builder dcOffset(double dcOffset) {
+            this.dcOffset = dcOffset;
+            return this;
+        }
+
+        public Builder dutyCycle(double dutyCycle) {
+            this.dutyCycle = dutyCycle;
+            return this;
+        }
+
+        public Builder burstMode(boolean burstMode) {
+            this.burstMode = burstMode;
+            return this;
+        }
+
+        public Builder burstCycles(int burstCycles) {
+            this.burstCycles = burstCycles;
+            return this;
+        }
+
+        public Builder burstPeriod(double burstPeriod) {
+            this.burstPeriod = burstPeriod;
+            return this;
+        }
+
+        public Builder frequencySweep(boolean frequencySweep) {
+            this.frequencySweep = frequencySweep;
+            return this;
+        }
+
+        public Builder sweepType(String sweepType) {
+            this.sweepType = sweepType;
+            return this;
+        }
+
+        public Builder startFreq(double startFreq) {
+            this.startFreq = startFreq;
+            return this;
+        }
+
+        public Builder stopFreq(double stopFreq) {
+            this.stopFreq = stopFreq;
+            return this;
+        }
+
+        public Builder sweepDuration(double sweepDuration) {
+            this.sweepDuration = sweepDuration;
+            return this;
+        }
+
+        public Builder phaseNoise(double phaseNoise) {
+            this.phaseNoise = phaseNoise;
+            return this;
+        }
+
+        public Builder ddsMode(boolean ddsMode) {
+            this.ddsMode = ddsMode;
+            return this;
+        }
+
+        public Builder parallelGeneration(boolean parallelGeneration) {
+            this.parallelGeneration = parallelGeneration;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder fixedSeed(boolean fixedSeed) {
+            this.fixedSeed = fixedSeed;
+            return this;
+        }
+
+        public Builder vectorBackend(boolean vectorBackend) {
+            this.vectorBackend = vectorBackend;
+            return this;
+        }
+
+        public Builder samplePrecision(String samplePrecision) {
+            this.samplePrecision = samplePrecision;
+            return this;
+        }
+
+        public Builder phaseNoiseMask(String phaseNoiseMask) {
+            this.phaseNoiseMask = phaseNoiseMask;
+            return this;
+        }
+
+        public Builder constellation(String constellation) {
+            this.constellation = constellation;
+            return this;
+        }
+
+        public Builder symbolRate(double symbolRate) {
+            this.symbolRate = symbolRate;
+            return this;
+        }
+
+        public Builder bitSource(String bitSource) {
+            this.bitSource = bitSource;
+            return this;
+        }
+
+        public Builder bitFile(String bitFile) {
+            this.bitFile = bitFile;
+            return this;
+        }
+
+        public Builder customPoints(CustomWaveform customPoints) {
+            this.customPoints = customPoints;
+            return this;
+        }
+
+        public Builder customNoise(CustomWaveform customNoise) {
+            this.customNoise = customNoise;
+            return this;
+        }
+
+        public Builder spectralProfile(CustomWaveform spectralProfile) {
+            this.spectralProfile = spectralProfile;
+            return this;
+        }
+
+        public WaveformSnapshot build() {
+            return new WaveformSnapshot(type, modulationType, samplingRate, samples, duration, resolution, amplitude, frequency, phase, harmonic1Amp,
+                    harmonic1Freq, carrierFreq, modIndex, iqSignal, selectedChannel, phaseOffset, syncChannels, noiseType,
+                    noiseAmplitude, jitterAmount, driftRate, quantizationNoise, dcOffset, dutyCycle, burstMode, burstCycles,
+                    burstPeriod, frequencySweep, sweepType, startFreq, stopFreq, sweepDuration, phaseNoise, ddsMode,
+                    parallelGeneration, seed, fixedSeed, vectorBackend, samplePrecision, phaseNoiseMask, constellation, symbolRate,
+                    bitSource, bitFile, customPoints, customNoise, spectralProfile);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,6 @@
+package awg.simulation.software;
+
+/// One specialized step of a compiled WaveformPipeline, run over a whole block at a time
+public interface WaveformStage {
+    void process(WaveformPipeline.Block block, int length);
+}
\ No newline at end of file
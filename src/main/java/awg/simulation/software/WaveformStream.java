@@ -0,0 +1,80 @@
+package awg.simulation.software;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class WaveformStream {
+    public static final long UNBOUNDED = Long.MAX_VALUE;
+
+    private final WaveformGenerator generator;
+    private final String type;
+    private final WaveformData data;
+    private final long totalSamples;
+    private long position;
+
+    public WaveformStream(WaveformGenerator generator, String type, WaveformData data, long totalSamples) {
+        if (totalSamples < 0) {
+            throw new IllegalArgumentException("Total samples must not be negative");
+        }
+        this.generator = generator;
+        this.type = type;
+        this.data = data;
+        this.totalSamples = totalSamples;
+    }
+
+    public WaveformStream(String type, WaveformData data, long totalSamples) {
+        this(new WaveformGenerator(), type, data, totalSamples);
+    }
+
+    /// Fills the block from the current position and returns the sample count, or -1 once the record is exhausted
+    public int read(double[] block) {
+        return read(block, 0, block.length);
+    }
+
+    public int read(double[] block, int offset, int length) {
+        long remaining = totalSamples - position;
+        if (remaining <= 0) {
+            return -1;
+        }
+        int count = (int) Math.min(length, remaining);
+        generator.generateInto(type, data, block, offset, count, position);
+        position += count;
+        return count;
+    }
+
+    /// Streams the remaining record as little-endian float64 samples in constant memory
+    public long transferTo(OutputStream out, int blockSize) throws IOException {
+        double[] block = new double[blockSize];
+        ByteBuffer bytes = ByteBuffer.allocate(blockSize * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long transferred = 0;
+        int count;
+        while ((count = read(block)) > 0) {
+            bytes.clear();
+            bytes.asDoubleBuffer().put(block, 0, count);
+            out.write(bytes.array(), 0, count * Double.BYTES);
+            transferred += count;
+        }
+        return transferred;
+    }
+
+    public void seek(long sampleIndex) {
+        if (sampleIndex < 0 || sampleIndex > totalSamples) {
+            throw new IllegalArgumentException("Sample index out of range: " + sampleIndex);
+        }
+        position = sampleIndex;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getTotalSamples() {
+        return totalSamples;
+    }
+
+    public boolean hasRemaining() {
+        return position < totalSamples;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package awg.simulation.software;
+
+import java.util.random.RandomGenerator;
+
+/// Standard normal sampler after Marsaglia and Tsang's ziggurat (Doornik's formulation, 256 layers). One
+/// 64-bit draw picks a layer and a signed uniform; about 99% of samples are accepted by a table compare and a
+/// multiply, and only the rare wedge and tail samples pay for exp or log.
+public final class Ziggurat {
+    private static final int LAYERS = 256;
+    /// Start of the tail and the common area of every layer for 256 layers
+    private static final double R = 3.6541528853610088;
+    private static final double V = 4.92867323399e-3;
+    /// Right edge of each layer; x[0] is the width of the virtual rectangle that stands in for the base strip
+    private static final double[] X = new double[LAYERS + 1];
+    /// x[i + 1] / x[i]: below this, |u| lies inside the rectangle under layer i's curve
+    private static final double[] RATIO = new double[LAYERS];
+
+    static {
+        double f = Math.exp(-0.5 * R * R);
+        X[0] = V / f;
+        X[1] = R;
+        X[LAYERS] = 0;
+        for (int i = 2; i < LAYERS; i++) {
+            X[i] = Math.sqrt(-2 * Math.log(V / X[i - 1] + f));
+            f = Math.exp(-0.5 * X[i] * X[i]);
+        }
+        for (int i = 0; i < LAYERS; i++) {
+            RATIO[i] = X[i + 1] / X[i];
+        }
+    }
+
+    private Ziggurat() {
+    }
+
+    public static double next(RandomGenerator random) {
+        for (;;) {
+            long bits = random.nextLong();
+            int layer = (int) bits & (LAYERS - 1);
+            /// Top 53 bits as a signed uniform in [-1, 1), independent of the 8 layer bits
+            double u = (bits >> 11) * 0x1.0p-52;
+            if (Math.abs(u) < RATIO[layer]) {
+                return u * X[layer];
+            }
+            if (layer == 0) {
+                return tail(random, u < 0);
+            }
+            double x = u * X[layer];
+            double f0 = Math.exp(-0.5 * (X[layer] * X[layer] - x * x));
+            double f1 = Math.exp(-0.5 * (X[layer + 1] * X[layer + 1] - x * x));
+            if (f1 + random.nextDouble() * (f0 - f1) < 1) {
+                return x;
+            }
+        }
+    }
+
+    /// out[offset, offset + length) = mean + stddev * N(0, 1), with the rectangle test inlined
+    public static void fill(RandomGenerator random, double[] out, int offset, int length, double mean, double stddev) {
+        for (int i = offset; i < offset + length; i++) {
+            long bits = random.nextLong();
+            int layer = (int) bits & (LAYERS - 1);
+            double u = (bits >> 11) * 0x1.0p-52;
+            double value = Math.abs(u) < RATIO[layer] ? u * X[layer] : slow(random, layer, u);
+            out[i] = mean + stddev * value;
+        }
+    }
+
+    /// Finishes a draw that missed the rectangle: tail for the base layer, otherwise the wedge test, and a
+    /// fresh draw on rejection
+    private static double slow(RandomGenerator random, int layer, double u) {
+        if (layer == 0) {
+            return tail(random, u < 0);
+        }
+        double x = u * X[layer];
+        double f0 = Math.exp(-0.5 * (X[layer] * X[layer] - x * x));
+        double f1 = Math.exp(-0.5 * (X[layer + 1] * X[layer + 1] - x * x));
+        return f1 + random.nextDouble() * (f0 - f1) < 1 ? x : next(random);
+    }
+
+    /// Marsaglia's exponential rejection for |x| > R
+    private static double tail(RandomGenerator random, boolean negative) {
+        double x;
+        double y;
+        do {
+            x = Math.log(1 - random.nextDouble()) / R;
+            y = Math.log(1 - random.nextDouble());
+        } while (-2 * y < x * x);
+        return negative ? x - R : R - x;
+    }
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ module com.example.awgsimulationsoftware {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.scripting;
+    requires static jdk.incubator.vector;
 
 
     opens awg.simulation.software to javafx.fxml;